@@ -3,14 +3,42 @@
 import java.util.*;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import com.sun.management.ThreadMXBean;
 
 public class CalendarApp {
 
   public static void main(String[] args) {
     CalendarManager calendar = new CalendarManager();
     if (args.length < 2) {
-      System.out.println("Usage: --mode interactive OR --mode headless <commandFile.txt>");
+      System.out.println("Usage: --mode interactive OR --mode headless <commandFile.txt>"
+              + " OR --mode headless-batch <directory|fileList.txt>"
+              + " OR --mode generate-workload <outputFile.txt> [key=value ...]"
+              + " OR --mode benchmark <commandFile.txt> [warmup=<runs>]");
       return;
     }
     if (args[0].equalsIgnoreCase("--mode")) {
@@ -22,8 +50,44 @@ public class CalendarApp {
           return;
         }
         runHeadlessMode(calendar, args[2]);
+      } else if (args[1].equalsIgnoreCase("headless-batch")) {
+        if (args.length < 3) {
+          System.out.println("Headless batch mode requires a directory or a file listing command files.");
+          return;
+        }
+        runHeadlessBatchMode(args[2]);
+      } else if (args[1].equalsIgnoreCase("generate-workload")) {
+        if (args.length < 3) {
+          System.out.println("Workload generation requires an output file.");
+          return;
+        }
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(args[2])))) {
+          WorkloadGenerator generator = WorkloadGenerator.fromOptions(Arrays.copyOfRange(args, 3, args.length));
+          int count = generator.generate(out);
+          System.out.println("Generated " + count + " command(s) in " + new File(args[2]).getAbsolutePath());
+          System.out.println("Command mix: " + generator.realized);
+        } catch (Exception e) {
+          System.out.println("Error generating workload: " + e.getMessage());
+        }
+      } else if (args[1].equalsIgnoreCase("benchmark")) {
+        if (args.length < 3) {
+          System.out.println("Benchmark mode requires a command file.");
+          return;
+        }
+        try {
+          int warmups = 0;
+          for (int i = 3; i < args.length; i++) {
+            if (!args[i].toLowerCase().startsWith("warmup=")) {
+              throw new Exception("Unknown benchmark option: " + args[i]);
+            }
+            warmups = Integer.parseInt(args[i].substring("warmup=".length()));
+          }
+          ThroughputRunner.replay(args[2], warmups).print(System.out);
+        } catch (Exception e) {
+          System.out.println("Error running benchmark: " + e.getMessage());
+        }
       } else {
-        System.out.println("Invalid mode. Use interactive or headless.");
+        System.out.println("Invalid mode. Use interactive, headless, headless-batch, generate-workload or benchmark.");
       }
     }
   }
@@ -47,7 +111,9 @@ public class CalendarApp {
     scanner.close();
   }
 
-  private static void runHeadlessMode(CalendarManager calendar, String fileName) {
+  // Runs the commands in the given file; returns false if the file could not be read or a command failed.
+  private static boolean runHeadlessMode(CalendarManager calendar, String fileName) {
+    boolean succeeded = true;
     try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
       String command;
       while ((command = br.readLine()) != null) {
@@ -60,242 +126,2285 @@ public class CalendarApp {
       }
     } catch (IOException e) {
       System.out.println("Error reading file: " + e.getMessage());
+      succeeded = false;
     } catch (Exception e) {
       System.out.println("Command error: " + e.getMessage());
+      succeeded = false;
+    }
+    // A failed command or a missing commit leaves nothing of the open transaction behind.
+    if (calendar.inTransaction()) {
+      try {
+        calendar.rollbackTransaction();
+        System.out.println("Uncommitted transaction rolled back.");
+      } catch (Exception e) {
+        System.out.println("Error rolling back transaction: " + e.getMessage());
+        succeeded = false;
+      }
+    }
+    return succeeded;
+  }
+
+  // Runs many independent command files in one JVM. The source is either a directory, whose regular
+  // files are processed in name order, or a text file listing one command file path per line
+  // (relative paths are resolved against the list's directory). Each file gets its own
+  // CalendarManager and runs on a fixed pool sized to the available processors. Output is captured
+  // per file and printed in input order with the file's run time, followed by a summary.
+  private static void runHeadlessBatchMode(String source) {
+    List<File> files;
+    try {
+      files = listBatchFiles(new File(source));
+    } catch (IOException e) {
+      System.out.println("Error reading batch source: " + e.getMessage());
+      return;
+    }
+    PrintStream console = System.out;
+    OutputRouter router = new OutputRouter(console);
+    int workers = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    long batchStart = System.nanoTime();
+    int failed = 0;
+    long totalFileNanos = 0;
+    System.setOut(router);
+    try {
+      List<Future<BatchResult>> results = new ArrayList<>();
+      for (File file : files) {
+        results.add(pool.submit(() -> {
+          ByteArrayOutputStream captured = new ByteArrayOutputStream();
+          router.capture(new PrintStream(captured, true));
+          long start = System.nanoTime();
+          try {
+            boolean succeeded = runHeadlessMode(new CalendarManager(), file.getPath());
+            return new BatchResult(file, captured, System.nanoTime() - start, succeeded);
+          } finally {
+            router.release();
+          }
+        }));
+      }
+      for (Future<BatchResult> future : results) {
+        BatchResult result;
+        try {
+          result = future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          console.println("Error processing file: " + e.getCause());
+          failed++;
+          continue;
+        }
+        console.printf("=== %s (%.1f ms%s) ===%n", result.file.getPath(), result.nanos / 1e6,
+                result.succeeded ? "" : ", failed");
+        result.output.writeTo(console);
+        totalFileNanos += result.nanos;
+        if (!result.succeeded) {
+          failed++;
+        }
+      }
+    } catch (IOException e) {
+      console.println("Error writing batch output: " + e.getMessage());
+    } finally {
+      System.setOut(console);
+      pool.shutdown();
+    }
+    console.printf("Processed %d file(s) with %d worker(s) in %.1f ms (%.1f ms of file time, %d failed).%n",
+            files.size(), workers, (System.nanoTime() - batchStart) / 1e6, totalFileNanos / 1e6, failed);
+  }
+
+  private static List<File> listBatchFiles(File source) throws IOException {
+    List<File> files = new ArrayList<>();
+    if (source.isDirectory()) {
+      File[] entries = source.listFiles(File::isFile);
+      if (entries == null) {
+        throw new IOException("Cannot list directory " + source);
+      }
+      Arrays.sort(entries);
+      files.addAll(Arrays.asList(entries));
+    } else {
+      File base = source.getAbsoluteFile().getParentFile();
+      try (BufferedReader br = new BufferedReader(new FileReader(source))) {
+        String line;
+        while ((line = br.readLine()) != null) {
+          line = line.trim();
+          if (!line.isEmpty()) {
+            File file = new File(line);
+            files.add(file.isAbsolute() ? file : new File(base, line));
+          }
+        }
+      }
+    }
+    return files;
+  }
+
+  // Outcome of running one command file in batch mode.
+  private static class BatchResult {
+    final File file;
+    final ByteArrayOutputStream output;
+    final long nanos;
+    final boolean succeeded;
+
+    BatchResult(File file, ByteArrayOutputStream output, long nanos, boolean succeeded) {
+      this.file = file;
+      this.output = output;
+      this.nanos = nanos;
+      this.succeeded = succeeded;
+    }
+  }
+
+  // Stand-in for System.out during batch runs that sends each thread's output to the stream it
+  // captured, or to the console for threads that have not captured one. Every print method is
+  // forwarded as a whole to the thread's stream, so threads never contend on the router's own lock
+  // and a println is not split into separate writes.
+  static class OutputRouter extends PrintStream {
+    private final ThreadLocal<PrintStream> target = new ThreadLocal<>();
+    private final PrintStream console;
+
+    OutputRouter(PrintStream console) {
+      super(console, true);
+      this.console = console;
+    }
+
+    void capture(PrintStream stream) {
+      target.set(stream);
+    }
+
+    void release() {
+      target.remove();
+    }
+
+    // Returns the stream the calling thread's output currently goes to.
+    PrintStream current() {
+      PrintStream stream = target.get();
+      return stream != null ? stream : console;
+    }
+
+    // Resolves a stream that may be a router to the calling thread's real destination, so that
+    // writers used from other threads still reach it.
+    static PrintStream resolve(PrintStream stream) {
+      return stream instanceof OutputRouter ? ((OutputRouter) stream).current() : stream;
+    }
+
+    @Override
+    public void write(int b) {
+      current().write(b);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+      current().write(buf, off, len);
+    }
+
+    @Override
+    public void flush() {
+      current().flush();
+    }
+
+    @Override
+    public void print(boolean b) {
+      current().print(b);
+    }
+
+    @Override
+    public void print(char c) {
+      current().print(c);
+    }
+
+    @Override
+    public void print(int i) {
+      current().print(i);
+    }
+
+    @Override
+    public void print(long l) {
+      current().print(l);
+    }
+
+    @Override
+    public void print(float f) {
+      current().print(f);
+    }
+
+    @Override
+    public void print(double d) {
+      current().print(d);
+    }
+
+    @Override
+    public void print(char[] s) {
+      current().print(s);
+    }
+
+    @Override
+    public void print(String s) {
+      current().print(s);
+    }
+
+    @Override
+    public void print(Object obj) {
+      current().print(obj);
+    }
+
+    @Override
+    public void println() {
+      current().println();
+    }
+
+    @Override
+    public void println(boolean b) {
+      current().println(b);
+    }
+
+    @Override
+    public void println(char c) {
+      current().println(c);
+    }
+
+    @Override
+    public void println(int i) {
+      current().println(i);
+    }
+
+    @Override
+    public void println(long l) {
+      current().println(l);
+    }
+
+    @Override
+    public void println(float f) {
+      current().println(f);
+    }
+
+    @Override
+    public void println(double d) {
+      current().println(d);
+    }
+
+    @Override
+    public void println(char[] s) {
+      current().println(s);
+    }
+
+    @Override
+    public void println(String s) {
+      current().println(s);
+    }
+
+    @Override
+    public void println(Object obj) {
+      current().println(obj);
+    }
+
+    @Override
+    public PrintStream printf(String format, Object... args) {
+      current().printf(format, args);
+      return this;
+    }
+
+    @Override
+    public PrintStream printf(Locale l, String format, Object... args) {
+      current().printf(l, format, args);
+      return this;
+    }
+
+    @Override
+    public PrintStream format(String format, Object... args) {
+      current().format(format, args);
+      return this;
+    }
+
+    @Override
+    public PrintStream format(Locale l, String format, Object... args) {
+      current().format(l, format, args);
+      return this;
+    }
+
+    @Override
+    public PrintStream append(CharSequence csq) {
+      current().append(csq);
+      return this;
+    }
+
+    @Override
+    public PrintStream append(CharSequence csq, int start, int end) {
+      current().append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public PrintStream append(char c) {
+      current().append(c);
+      return this;
     }
   }
 
   // Represents a calendar event.
   public static class CalendarEvent {
-    String eventName;
+    // Name, description, location and visibility, shared with the other occurrences of a series.
+    EventAttributes attributes;
     LocalDateTime start;
     LocalDateTime end;
     boolean isAllDay;
-    String description;
-    String location;
-    boolean isPublic;
 
-    public CalendarEvent(String eventName, LocalDateTime start, LocalDateTime end, boolean isAllDay) {
-      this.eventName = eventName;
-      this.start = start;
-      this.end = end;
-      this.isAllDay = isAllDay;
-      this.description = "";
-      this.location = "";
-      this.isPublic = true;
+    public CalendarEvent(String eventName, LocalDateTime start, LocalDateTime end, boolean isAllDay) {
+      this(new EventAttributes(eventName), start, end, isAllDay);
+    }
+
+    CalendarEvent(EventAttributes attributes, LocalDateTime start, LocalDateTime end, boolean isAllDay) {
+      this.attributes = attributes;
+      this.start = start;
+      this.end = end;
+      this.isAllDay = isAllDay;
+    }
+
+    public String eventName() {
+      return attributes.eventName;
+    }
+
+    public String description() {
+      return attributes.description;
+    }
+
+    public String location() {
+      return attributes.location;
+    }
+
+    public boolean isPublic() {
+      return attributes.isPublic;
+    }
+
+    // Two events conflict if their time intervals overlap.
+    public boolean conflictsWith(CalendarEvent other) {
+      return this.start.isBefore(other.end) && this.end.isAfter(other.start);
+    }
+
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // Writes the same text as toString() directly to the writer without building intermediate strings.
+    public void printTo(PrintWriter out) {
+      EventAttributes attributes = this.attributes;
+      out.append(attributes.eventName);
+      if (isAllDay) {
+        out.append(" (All Day on ");
+        DateTimeFormatter.ISO_LOCAL_DATE.formatTo(start, out);
+        out.append(')');
+      } else {
+        out.append(" from ");
+        DISPLAY_FORMAT.formatTo(start, out);
+        out.append(" to ");
+        DISPLAY_FORMAT.formatTo(end, out);
+      }
+      if (!attributes.description.isEmpty()) {
+        out.append(", Description: ").append(attributes.description);
+      }
+      if (!attributes.location.isEmpty()) {
+        out.append(", Location: ").append(attributes.location);
+      }
+      out.append(", ").append(attributes.isPublic ? "Public" : "Private");
+    }
+
+    @Override
+    public String toString() {
+      StringWriter buffer = new StringWriter();
+      printTo(new PrintWriter(buffer));
+      return buffer.toString();
+    }
+  }
+
+  // Manages the list of calendar events and provides operations on them.
+  public static class CalendarManager {
+    List<CalendarEvent> events;
+    // Optional read-only archive of older events kept in memory-mapped files.
+    MappedEventStore archive;
+    // Mutations staged by an open transaction, or null when none is open.
+    Transaction transaction;
+    // Busy-time index over archived and in-memory events, built on first use and then kept up to date.
+    OccupancyIndex occupancy;
+    // Name, description and location values of the attribute holders of the in-memory events.
+    AttributePool attributePool = new AttributePool();
+    // Attribute holders of the in-memory events added through addEvent or a commit, by event name.
+    Map<String, List<EventAttributes>> holders = new HashMap<>();
+    // Longest duration of any in-memory event, in seconds; bounds how far before a query's
+    // start a live scan has to begin.
+    long maxDurationSeconds;
+
+    public CalendarManager() {
+      events = new ArrayList<>();
+    }
+
+    // Mutations staged between "begin" and "commit". Creates are kept in staging order together
+    // with their autoDecline flag; each edit remembers how many creates preceded it so that it
+    // sees exactly the events it would have seen had it run immediately.
+    static class Transaction {
+      final List<CalendarEvent> created = new ArrayList<>();
+      final List<Boolean> autoDecline = new ArrayList<>();
+      final List<Integer> editVisibleCreates = new ArrayList<>();
+      final List<IntSupplier> edits = new ArrayList<>();
+
+      void stageEdit(IntSupplier edit) {
+        editVisibleCreates.add(created.size());
+        edits.add(edit);
+      }
+    }
+
+    public boolean inTransaction() {
+      return transaction != null;
+    }
+
+    // Opens a transaction; subsequent creates and edits are staged until commit or rollback.
+    public void beginTransaction() throws Exception {
+      if (transaction != null) {
+        throw new Exception("A transaction is already in progress.");
+      }
+      transaction = new Transaction();
+    }
+
+    // Discards all staged mutations.
+    public void rollbackTransaction() throws Exception {
+      if (transaction == null) {
+        throw new Exception("No transaction in progress.");
+      }
+      transaction = null;
+    }
+
+    // Validates the staged creates against each other and the calendar in a single sweep over
+    // start-sorted events, then applies creates and edits together with one re-sort.
+    // If any autoDecline conflict is found nothing is applied and the transaction is rolled back.
+    // Returns the number of events created and the number of event updates made by edits.
+    public int[] commitTransaction() throws Exception {
+      if (transaction == null) {
+        throw new Exception("No transaction in progress.");
+      }
+      Transaction tx = transaction;
+      transaction = null;
+      List<String> warnings = validateStaged(tx);
+      for (String warning : warnings) {
+        System.out.println(warning);
+      }
+      List<CalendarEvent> applied = new ArrayList<>(events.size() + tx.created.size());
+      applied.addAll(events);
+      int nextCreate = 0;
+      int updated = 0;
+      for (int i = 0; i < tx.edits.size(); i++) {
+        int visible = tx.editVisibleCreates.get(i);
+        while (nextCreate < visible) {
+          register(tx.created.get(nextCreate));
+          trackDuration(tx.created.get(nextCreate));
+          applied.add(tx.created.get(nextCreate++));
+        }
+        updated += tx.edits.get(i).getAsInt();
+      }
+      while (nextCreate < tx.created.size()) {
+        register(tx.created.get(nextCreate));
+        trackDuration(tx.created.get(nextCreate));
+        applied.add(tx.created.get(nextCreate++));
+      }
+      // The existing events form one sorted run, so this is close to a linear merge.
+      applied.sort(Comparator.comparing(e -> e.start));
+      events = applied;
+      if (occupancy != null) {
+        tx.created.forEach(occupancy::add);
+      }
+      return new int[] {tx.created.size(), updated};
+    }
+
+    // Sweeps existing and staged events in start order, keeping the events still running at each
+    // start. Returns the warnings for non-declining conflicts, or throws on an autoDecline conflict.
+    private List<String> validateStaged(Transaction tx) throws Exception {
+      List<String> warnings = new ArrayList<>();
+      Integer[] order = new Integer[tx.created.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparing(i -> tx.created.get(i).start));
+      List<CalendarEvent> activeExisting = new ArrayList<>();
+      List<Integer> activeStaged = new ArrayList<>();
+      int existingIndex = 0;
+      int stagedIndex = 0;
+      while (stagedIndex < order.length || !activeStaged.isEmpty()) {
+        boolean takeExisting;
+        if (existingIndex >= events.size()) {
+          if (stagedIndex >= order.length) {
+            break;
+          }
+          takeExisting = false;
+        } else {
+          takeExisting = stagedIndex >= order.length
+                  || !events.get(existingIndex).start.isAfter(tx.created.get(order[stagedIndex]).start);
+        }
+        CalendarEvent current = takeExisting ? events.get(existingIndex) : tx.created.get(order[stagedIndex]);
+        activeExisting.removeIf(e -> !e.end.isAfter(current.start));
+        activeStaged.removeIf(i -> !tx.created.get(i).end.isAfter(current.start));
+        if (takeExisting) {
+          for (int i : activeStaged) {
+            checkStagedConflict(tx, i, current, warnings);
+          }
+          activeExisting.add(current);
+          existingIndex++;
+        } else {
+          int index = order[stagedIndex];
+          for (CalendarEvent other : activeExisting) {
+            checkStagedConflict(tx, index, other, warnings);
+          }
+          for (int i : activeStaged) {
+            // Run one after the other, the later-staged event of the pair is the one that is checked.
+            checkStagedConflict(tx, Math.max(i, index), tx.created.get(Math.min(i, index)), warnings);
+          }
+          if (archive != null) {
+            for (CalendarEvent other : archive.getEventsInRange(current.start, current.end)) {
+              checkStagedConflict(tx, index, other, warnings);
+            }
+          }
+          activeStaged.add(index);
+          stagedIndex++;
+        }
+      }
+      return warnings;
+    }
+
+    // Records or rejects a conflict between a staged event and an event that was already in the
+    // calendar, or staged before it, when the staged event would have been added.
+    private static void checkStagedConflict(Transaction tx, int stagedIndex, CalendarEvent other, List<String> warnings)
+            throws Exception {
+      CalendarEvent staged = tx.created.get(stagedIndex);
+      if (!staged.conflictsWith(other)) {
+        return;
+      }
+      if (tx.autoDecline.get(stagedIndex)) {
+        throw new Exception("Transaction rolled back: Conflict detected with event: " + other.eventName());
+      }
+      warnings.add("Warning: Event " + staged.eventName() + " conflicts with " + other.eventName());
+    }
+
+    // Moves all in-memory events (together with any attached archive) into a memory-mapped store.
+    // Archived events remain visible to queries, status checks and exports but can no longer be edited.
+    public long archiveTo(String basePath) throws Exception {
+      if (transaction != null) {
+        throw new Exception("Cannot archive while a transaction is in progress.");
+      }
+      archive = MappedEventStore.write(basePath, allEvents());
+      events = new ArrayList<>();
+      attributePool = new AttributePool();
+      holders = new HashMap<>();
+      maxDurationSeconds = 0;
+      return archive.size();
+    }
+
+    // Streams the events of a CSV export, which must be sorted by start as "export cal" writes them,
+    // into a memory-mapped store merged with any attached archive, and attaches the result.
+    // Neither the CSV nor the archive is loaded onto the heap, so calendars larger than the heap
+    // can be brought into the archive this way. In-memory events are left untouched.
+    public long importArchive(String csvFile, String basePath) throws Exception {
+      if (transaction != null) {
+        throw new Exception("Cannot import while a transaction is in progress.");
+      }
+      try (MappedEventStore.CsvEventReader reader = new MappedEventStore.CsvEventReader(csvFile)) {
+        Iterator<CalendarEvent> source = archive == null ? reader : mergeByStart(archive.iterator(), reader);
+        archive = MappedEventStore.write(basePath, source);
+      }
+      occupancy = null;
+      return archive.size();
+    }
+
+    // Attaches an existing memory-mapped store as the archive.
+    public long openArchive(String basePath) throws Exception {
+      if (transaction != null) {
+        throw new Exception("Cannot open an archive while a transaction is in progress.");
+      }
+      archive = MappedEventStore.open(basePath);
+      occupancy = null;
+      return archive.size();
+    }
+
+    // Iterates over archived and in-memory events together in start order.
+    Iterator<CalendarEvent> allEvents() {
+      if (archive == null) {
+        return events.iterator();
+      }
+      return mergeByStart(archive.iterator(), events.iterator());
+    }
+
+    // Merges two start-sorted iterators; on equal starts the first iterator wins.
+    private static Iterator<CalendarEvent> mergeByStart(Iterator<CalendarEvent> first, Iterator<CalendarEvent> second) {
+      return new Iterator<CalendarEvent>() {
+        private CalendarEvent nextFirst = first.hasNext() ? first.next() : null;
+        private CalendarEvent nextSecond = second.hasNext() ? second.next() : null;
+
+        @Override
+        public boolean hasNext() {
+          return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public CalendarEvent next() {
+          CalendarEvent result;
+          if (nextSecond == null || (nextFirst != null && !nextSecond.start.isBefore(nextFirst.start))) {
+            if (nextFirst == null) {
+              throw new NoSuchElementException();
+            }
+            result = nextFirst;
+            nextFirst = first.hasNext() ? first.next() : null;
+          } else {
+            result = nextSecond;
+            nextSecond = second.hasNext() ? second.next() : null;
+          }
+          return result;
+        }
+      };
+    }
+
+    private void trackDuration(CalendarEvent event) {
+      maxDurationSeconds = Math.max(maxDurationSeconds, Duration.between(event.start, event.end).getSeconds());
+    }
+
+    // Lazily iterates over the in-memory events that the filter accepts among those starting in
+    // [earliest, before), where earliest is raised to startingAt when that is given.
+    private Iterator<CalendarEvent> liveEvents(LocalDateTime earliest, LocalDateTime startingAt, LocalDateTime before,
+                                               Predicate<CalendarEvent> filter) {
+      if (startingAt != null && startingAt.isAfter(earliest)) {
+        earliest = startingAt;
+      }
+      int first = lowerBoundByStart(events, earliest);
+      int last = Math.max(first, lowerBoundByStart(events, before));
+      return events.subList(first, last).stream().filter(filter).iterator();
+    }
+
+    // Feeds the events occurring on the given date to the visitor in start order, reading
+    // archived events as they are reached. The visitor returns false to stop early.
+    public void forEachEventOn(LocalDate date, Predicate<CalendarEvent> visitor) {
+      forEachEventOn(date, null, visitor);
+    }
+
+    // As above, but skips the events starting before startingAt (if not null) without visiting them.
+    public void forEachEventOn(LocalDate date, LocalDateTime startingAt, Predicate<CalendarEvent> visitor) {
+      LocalDateTime dayStart = date.atStartOfDay();
+      Iterator<CalendarEvent> it = liveEvents(dayStart.minusSeconds(maxDurationSeconds), startingAt,
+              date.plusDays(1).atStartOfDay(), event -> {
+        if (event.isAllDay) {
+          return event.start.toLocalDate().equals(date);
+        }
+        // For timed events, check if the event spans the queried date.
+        return !event.start.toLocalDate().isAfter(date) && !event.end.toLocalDate().isBefore(date);
+      });
+      if (archive != null) {
+        it = mergeByStart(archive.eventsOn(date, startingAt), it);
+      }
+      while (it.hasNext() && visitor.test(it.next())) {
+        // The visitor does the work.
+      }
+    }
+
+    // Feeds the events overlapping the given time range to the visitor in start order.
+    // The visitor returns false to stop early.
+    public void forEachEventInRange(LocalDateTime startRange, LocalDateTime endRange,
+                                    Predicate<CalendarEvent> visitor) {
+      forEachEventInRange(startRange, endRange, null, visitor);
+    }
+
+    // As above, but skips the events starting before startingAt (if not null) without visiting them.
+    public void forEachEventInRange(LocalDateTime startRange, LocalDateTime endRange, LocalDateTime startingAt,
+                                    Predicate<CalendarEvent> visitor) {
+      Iterator<CalendarEvent> it = liveEvents(startRange.minusSeconds(maxDurationSeconds), startingAt, endRange,
+              event -> event.end.isAfter(startRange));
+      if (archive != null) {
+        it = mergeByStart(archive.eventsInRange(startRange, endRange, startingAt), it);
+      }
+      while (it.hasNext() && visitor.test(it.next())) {
+        // The visitor does the work.
+      }
+    }
+
+    // Adds an event; if autoDecline is true, a conflict will cancel creation.
+    // Inside a transaction the event is only staged; conflicts are checked on commit.
+    public boolean addEvent(CalendarEvent newEvent, boolean autoDecline) throws Exception {
+      if (transaction != null) {
+        transaction.created.add(newEvent);
+        transaction.autoDecline.add(autoDecline);
+        return true;
+      }
+      if (archive != null) {
+        for (Iterator<CalendarEvent> it = archive.eventsInRange(newEvent.start, newEvent.end); it.hasNext(); ) {
+          checkConflict(newEvent, it.next(), autoDecline);
+        }
+      }
+      for (CalendarEvent event : events) {
+        checkConflict(newEvent, event, autoDecline);
+      }
+      register(newEvent);
+      trackDuration(newEvent);
+      events.add(newEvent);
+      if (occupancy != null) {
+        occupancy.add(newEvent);
+      }
+      // Sort events based on start date/time.
+      Collections.sort(events, Comparator.comparing(e -> e.start));
+      return true;
+    }
+
+    // Rejects the new event on a conflict if autoDecline is true, otherwise only warns about it.
+    private static void checkConflict(CalendarEvent newEvent, CalendarEvent event, boolean autoDecline) throws Exception {
+      if (newEvent.conflictsWith(event)) {
+        if (autoDecline) {
+          throw new Exception("Conflict detected with event: " + event.eventName());
+        } else {
+          System.out.println("Warning: Event conflicts with " + event.eventName());
+        }
+      }
+    }
+
+    // Returns events that occur on the given date.
+    public List<CalendarEvent> getEventsOn(LocalDate date) {
+      List<CalendarEvent> result = new ArrayList<>();
+      forEachEventOn(date, result::add);
+      return result;
+    }
+
+    // Returns events within the given time range.
+    public List<CalendarEvent> getEventsInRange(LocalDateTime startRange, LocalDateTime endRange) {
+      List<CalendarEvent> result = new ArrayList<>();
+      forEachEventInRange(startRange, endRange, result::add);
+      return result;
+    }
+
+    // Returns the occupancy index, building it from all events the first time it is needed.
+    public OccupancyIndex occupancy() {
+      if (occupancy == null) {
+        OccupancyIndex index = new OccupancyIndex();
+        allEvents().forEachRemaining(index::add);
+        occupancy = index;
+      }
+      return occupancy;
+    }
+
+    // Smallest number of events a conflict report task sweeps before it stops splitting.
+    static final int CONFLICT_SPLIT_THRESHOLD = 1024;
+
+    // Reports every pair of overlapping events, archived ones included, to the sink, restricted to
+    // pairs whose overlap intersects [from, to) when a range is given (either bound may be null).
+    // Start-sorted events are partitioned by index, i.e. into consecutive time ranges, and swept in
+    // parallel on the common fork-join pool. Each pair is reported once, by the partition holding
+    // its later-starting event; events that straddle into a partition are found by scanning back at
+    // most the longest event duration. In-memory and archived events are swept separately, and
+    // pairs spanning both are found by looking up each in-memory event's overlaps in the archive.
+    // Pairs are passed earlier-starting event first. The sink is called concurrently and in no
+    // particular order. Returns the number of pairs reported.
+    public long forEachConflict(LocalDateTime from, LocalDateTime to, BiConsumer<CalendarEvent, CalendarEvent> sink) {
+      LongAdder count = new LongAdder();
+      long liveMaxDuration = events.parallelStream()
+              .mapToLong(e -> Duration.between(e.start, e.end).getSeconds())
+              .max().orElse(0);
+      sweepConflicts(events, liveMaxDuration, from, to, count, sink);
+      if (archive != null) {
+        sweepConflicts(archive.asList(), archive.maxDurationSeconds(), from, to, count, sink);
+        int first = from == null ? 0 : lowerBoundByStart(events, from.minusSeconds(liveMaxDuration));
+        int last = to == null ? events.size() : lowerBoundByStart(events, to);
+        IntStream.range(first, Math.max(first, last)).parallel().forEach(i -> {
+          CalendarEvent live = events.get(i);
+          for (Iterator<CalendarEvent> it = archive.eventsInRange(live.start, live.end); it.hasNext(); ) {
+            CalendarEvent archived = it.next();
+            // Archived events come first on equal starts, as in allEvents().
+            boolean archivedFirst = !live.start.isBefore(archived.start);
+            CalendarEvent earlier = archivedFirst ? archived : live;
+            CalendarEvent later = archivedFirst ? live : archived;
+            if (earlier.conflictsWith(later) && (to == null || later.start.isBefore(to))
+                    && (from == null || earlier.end.isAfter(from) && later.end.isAfter(from))) {
+              count.increment();
+              sink.accept(earlier, later);
+            }
+          }
+        });
+      }
+      return count.sum();
+    }
+
+    // Runs the partitioned sweep over one start-sorted list of events.
+    private static void sweepConflicts(List<CalendarEvent> sorted, long maxDuration, LocalDateTime from, LocalDateTime to,
+                                       LongAdder count, BiConsumer<CalendarEvent, CalendarEvent> sink) {
+      int first = from == null ? 0 : lowerBoundByStart(sorted, from.minusSeconds(maxDuration));
+      int last = to == null ? sorted.size() : lowerBoundByStart(sorted, to);
+      if (first < last) {
+        ForkJoinPool.commonPool().invoke(new ConflictSweep(sorted, first, last, maxDuration, from, count, sink));
+      }
+    }
+
+    // Returns the index of the first event in the start-sorted list starting at or after the given time.
+    private static int lowerBoundByStart(List<CalendarEvent> sorted, LocalDateTime time) {
+      int lo = 0;
+      int hi = sorted.size();
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (sorted.get(mid).start.isBefore(time)) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    // Sweep-line over one partition [lo, hi) of the start-sorted events.
+    private static class ConflictSweep extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+
+      private final List<CalendarEvent> sorted;
+      private final int lo;
+      private final int hi;
+      private final long maxDuration;
+      private final LocalDateTime from;
+      private final LongAdder count;
+      private final BiConsumer<CalendarEvent, CalendarEvent> sink;
+
+      ConflictSweep(List<CalendarEvent> sorted, int lo, int hi, long maxDuration, LocalDateTime from,
+                    LongAdder count, BiConsumer<CalendarEvent, CalendarEvent> sink) {
+        this.sorted = sorted;
+        this.lo = lo;
+        this.hi = hi;
+        this.maxDuration = maxDuration;
+        this.from = from;
+        this.count = count;
+        this.sink = sink;
+      }
+
+      @Override
+      protected void compute() {
+        if (hi - lo <= CONFLICT_SPLIT_THRESHOLD) {
+          sweep();
+        } else {
+          int mid = (lo + hi) >>> 1;
+          invokeAll(new ConflictSweep(sorted, lo, mid, maxDuration, from, count, sink),
+                  new ConflictSweep(sorted, mid, hi, maxDuration, from, count, sink));
+        }
+      }
+
+      private void sweep() {
+        List<CalendarEvent> active = new ArrayList<>();
+        // Seed with earlier events still running when this partition begins.
+        LocalDateTime partitionStart = sorted.get(lo).start;
+        LocalDateTime horizon = partitionStart.minusSeconds(maxDuration);
+        // Each get on an archive view decodes a record, so every event is fetched once.
+        for (int j = lo - 1; j >= 0; j--) {
+          CalendarEvent earlier = sorted.get(j);
+          if (earlier.start.isBefore(horizon)) {
+            break;
+          }
+          if (earlier.end.isAfter(partitionStart)) {
+            active.add(earlier);
+          }
+        }
+        for (int i = lo; i < hi; i++) {
+          CalendarEvent current = sorted.get(i);
+          active.removeIf(e -> !e.end.isAfter(current.start));
+          for (CalendarEvent earlier : active) {
+            if (earlier.conflictsWith(current) && (from == null || earlier.end.isAfter(from) && current.end.isAfter(from))) {
+              count.increment();
+              sink.accept(earlier, current);
+            }
+          }
+          active.add(current);
+        }
+      }
+    }
+
+    // Exports the current calendar events to a CSV file in our custom format.
+    // Rows are written as events are read, so an archive larger than the heap can be exported.
+    public void exportToCSV(String fileName) {
+      try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileName)))) {
+        writer.print("EventName,Start,End,AllDay,Description,Location,Public\n");
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        for (Iterator<CalendarEvent> it = allEvents(); it.hasNext(); ) {
+          CalendarEvent event = it.next();
+          writer.print("\"" + event.eventName() + "\",");
+          writer.print(event.start.format(dtf) + ",");
+          writer.print(event.end.format(dtf) + ",");
+          writer.print(event.isAllDay + ",");
+          writer.print("\"" + event.description() + "\",");
+          writer.print("\"" + event.location() + "\",");
+          writer.print(event.isPublic() + "\n");
+        }
+        if (writer.checkError()) {
+          throw new IOException("Could not write " + fileName);
+        }
+        File file = new File(fileName);
+        System.out.println("Exported to CSV: " + file.getAbsolutePath());
+      } catch (Exception e) {
+        System.out.println("Error exporting CSV: " + e.getMessage());
+      }
+    }
+
+    // Exports the calendar events to a CSV file that follows the Google Calendar import format.
+    public void exportToGoogleCSV(String fileName) {
+      try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileName)))) {
+        // Google Calendar CSV headers:
+        // Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private
+        writer.print("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private\n");
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+
+        for (Iterator<CalendarEvent> it = allEvents(); it.hasNext(); ) {
+          CalendarEvent event = it.next();
+          writer.print("\"" + event.eventName() + "\",");
+          if (event.isAllDay) {
+            // For all-day events, only the date is needed. Leave time blank.
+            writer.print(event.start.format(dateFormatter) + ",,");
+            writer.print(event.start.format(dateFormatter) + ",,");
+            writer.print("True,");
+          } else {
+            writer.print(event.start.format(dateFormatter) + ",");
+            writer.print(event.start.format(timeFormatter) + ",");
+            writer.print(event.end.format(dateFormatter) + ",");
+            writer.print(event.end.format(timeFormatter) + ",");
+            writer.print("False,");
+          }
+          writer.print("\"" + event.description() + "\",");
+          writer.print("\"" + event.location() + "\",");
+          // Google CSV uses 'Private' where True means the event is private.
+          // Here, if event.isPublic() is true, we output False.
+          writer.print(event.isPublic() ? "False" : "True");
+          writer.print("\n");
+        }
+        if (writer.checkError()) {
+          throw new IOException("Could not write " + fileName);
+        }
+        File file = new File(fileName);
+        System.out.println("Exported to Google CSV: " + file.getAbsolutePath());
+      } catch (Exception e) {
+        System.out.println("Error exporting Google CSV: " + e.getMessage());
+      }
+    }
+
+    // Checks if the calendar is busy at the given date/time.
+    public boolean isBusyAt(LocalDateTime dateTime) {
+      for (CalendarEvent event : events) {
+        if (!event.start.isAfter(dateTime) && event.end.isAfter(dateTime)) {
+          return true;
+        }
+      }
+      return archive != null && archive.isBusyAt(dateTime);
+    }
+
+    // Edit a single event identified by eventName, start, and end.
+    // Inside a transaction the edit is staged and true is returned.
+    public boolean editSingleEvent(String property, String eventName, LocalDateTime start, LocalDateTime end, String newValue) {
+      if (transaction != null) {
+        transaction.stageEdit(() -> editSingle(property, eventName, start, end, newValue) ? 1 : 0);
+        return true;
+      }
+      return editSingle(property, eventName, start, end, newValue);
+    }
+
+    // Edit all events in the series starting at or after a given start date/time.
+    // Returns the number of events modified, or 0 when the edit is staged in a transaction.
+    public int editEventsByStart(String property, String eventName, LocalDateTime start, String newValue) {
+      if (transaction != null) {
+        transaction.stageEdit(() -> editByStart(property, eventName, start, newValue));
+        return 0;
+      }
+      return editByStart(property, eventName, start, newValue);
+    }
+
+    // Edit all events with the given event name.
+    // Returns the number of events modified, or 0 when the edit is staged in a transaction.
+    public int editEventsByName(String property, String eventName, String newValue) {
+      if (transaction != null) {
+        transaction.stageEdit(() -> editByName(property, eventName, newValue));
+        return 0;
+      }
+      return editByName(property, eventName, newValue);
+    }
+
+    // The edits below find events through the holders registered under their name. An edit that
+    // covers every event of a holder writes the holder once; one that covers only some of them
+    // first moves those events onto a copy of it.
+    private boolean editSingle(String property, String eventName, LocalDateTime start, LocalDateTime end,
+                               String newValue) {
+      if (!isEditable(property)) {
+        return false;
+      }
+      for (EventAttributes holder : holdersNamed(eventName)) {
+        for (CalendarEvent event : holder.sharers) {
+          if (event.start.equals(start) && event.end.equals(end)) {
+            updateProperty(detach(holder, Collections.singletonList(event)), property, newValue);
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private int editByStart(String property, String eventName, LocalDateTime start, String newValue) {
+      if (!isEditable(property)) {
+        return 0;
+      }
+      int count = 0;
+      for (EventAttributes holder : holdersNamed(eventName)) {
+        List<CalendarEvent> matching = new ArrayList<>();
+        for (CalendarEvent event : holder.sharers) {
+          if (!event.start.isBefore(start)) {
+            matching.add(event);
+          }
+        }
+        if (!matching.isEmpty()) {
+          updateProperty(detach(holder, matching), property, newValue);
+          count += matching.size();
+        }
+      }
+      return count;
+    }
+
+    // Writes each holder with the given name once, however many events share it.
+    private int editByName(String property, String eventName, String newValue) {
+      if (!isEditable(property)) {
+        return 0;
+      }
+      int count = 0;
+      for (EventAttributes holder : holdersNamed(eventName)) {
+        updateProperty(holder, property, newValue);
+        count += holder.sharers.size();
+      }
+      return count;
+    }
+
+    // Returns a copy of the list of holders with the given name, as a name edit moves holders between lists.
+    private List<EventAttributes> holdersNamed(String eventName) {
+      List<EventAttributes> named = holders.get(eventName);
+      return named == null ? Collections.emptyList() : new ArrayList<>(named);
+    }
+
+    // Returns a holder shared by exactly the given events of the holder: the holder itself when they
+    // are all of its events, otherwise a new registered copy that they are moved onto.
+    private EventAttributes detach(EventAttributes holder, List<CalendarEvent> moved) {
+      if (moved.size() == holder.sharers.size()) {
+        return holder;
+      }
+      EventAttributes copy = new EventAttributes(holder.eventName);
+      copy.description = holder.description;
+      copy.location = holder.location;
+      copy.isPublic = holder.isPublic;
+      registerHolder(copy);
+      Set<CalendarEvent> movedSet = new HashSet<>(moved);
+      holder.sharers.removeIf(movedSet::contains);
+      for (CalendarEvent event : moved) {
+        event.attributes = copy;
+        copy.sharers.add(event);
+      }
+      return copy;
+    }
+
+    // Adds the event to its attribute holder, registering the holder with its first event.
+    private void register(CalendarEvent event) {
+      EventAttributes holder = event.attributes;
+      if (holder.sharers.isEmpty()) {
+        registerHolder(holder);
+      }
+      holder.sharers.add(event);
+    }
+
+    // Points the holder's string attributes at the pooled values and indexes it by name.
+    private void registerHolder(EventAttributes holder) {
+      holder.eventName = attributePool.acquire(holder.eventName);
+      holder.description = attributePool.acquire(holder.description);
+      holder.location = attributePool.acquire(holder.location);
+      holders.computeIfAbsent(holder.eventName, name -> new ArrayList<>()).add(holder);
+    }
+
+    // Allowed properties: name, description, location, public.
+    private static boolean isEditable(String property) {
+      switch (property.toLowerCase()) {
+        case "name":
+        case "description":
+        case "location":
+        case "public":
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    // Helper method to update a holder's property, which every event sharing it sees.
+    private void updateProperty(EventAttributes holder, String property, String newValue) {
+      switch (property.toLowerCase()) {
+        case "name":
+          List<EventAttributes> named = holders.get(holder.eventName);
+          named.remove(holder);
+          if (named.isEmpty()) {
+            holders.remove(holder.eventName);
+          }
+          attributePool.release(holder.eventName);
+          holder.eventName = attributePool.acquire(newValue);
+          holders.computeIfAbsent(holder.eventName, name -> new ArrayList<>()).add(holder);
+          break;
+        case "description":
+          attributePool.release(holder.description);
+          holder.description = attributePool.acquire(newValue);
+          break;
+        case "location":
+          attributePool.release(holder.location);
+          holder.location = attributePool.acquire(newValue);
+          break;
+        default:
+          holder.isPublic = Boolean.parseBoolean(newValue);
+          break;
+      }
+    }
+  }
+
+  // Attribute values of an event, shared by every occurrence of a recurring series. Occurrences
+  // read their attributes through the holder, so an edit covering all of them is a single write.
+  public static class EventAttributes {
+    String eventName;
+    String description = "";
+    String location = "";
+    boolean isPublic = true;
+    // In-memory events using this holder; maintained by the CalendarManager the events belong to.
+    final List<CalendarEvent> sharers = new ArrayList<>();
+
+    EventAttributes(String eventName) {
+      this.eventName = eventName;
+    }
+  }
+
+  // Deduplicated, reference-counted table of event attribute values (names, descriptions and
+  // locations). Attribute holders point at the pooled instance, so a value used by many series is
+  // stored once; it is dropped from the table when the last holder referring to it changes.
+  public static class AttributePool {
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static class Entry {
+      final String value;
+      int references;
+
+      Entry(String value) {
+        this.value = value;
+      }
+    }
+
+    // Returns the pooled instance equal to the value and records one more reference to it.
+    public String acquire(String value) {
+      if (value.isEmpty()) {
+        return "";
+      }
+      Entry entry = entries.computeIfAbsent(value, Entry::new);
+      entry.references++;
+      return entry.value;
+    }
+
+    // Drops one reference to the value, removing it from the pool when none remain.
+    // Values that were never acquired are ignored.
+    public void release(String value) {
+      if (value.isEmpty()) {
+        return;
+      }
+      Entry entry = entries.get(value);
+      if (entry != null && --entry.references == 0) {
+        entries.remove(value);
+      }
+    }
+
+    // Number of attribute holders referring to the value; a whole series counts once.
+    public int references(String value) {
+      Entry entry = entries.get(value);
+      return entry == null ? 0 : entry.references;
+    }
+
+    // Number of distinct values in the pool.
+    public int size() {
+      return entries.size();
+    }
+  }
+
+  // Read-only event store kept outside the Java heap in memory-mapped files.
+  // Events are written as fixed-width records sorted by start time to "<base>.events", and their
+  // string attributes are written (deduplicated) to a separate "<base>.strings" heap file.
+  // Queries binary-search the mapped records and only materialize CalendarEvent objects for matches.
+  public static class MappedEventStore implements Iterable<CalendarEvent> {
+    static final int MAGIC = 0x43414C31;
+    static final int HEADER_SIZE = 32;
+    // Record layout: start, end, name/description/location offsets (longs), then their lengths and flags (ints).
+    static final int RECORD_SIZE = 56;
+    static final int RECORDS_PER_SEGMENT = 1 << 24;
+    static final int STRING_SEGMENT_SIZE = 1 << 30;
+    static final int FLAG_ALL_DAY = 1;
+    static final int FLAG_PUBLIC = 2;
+
+    private final ByteBuffer[] recordSegments;
+    private final ByteBuffer[] stringSegments;
+    private final long count;
+    private final long maxDurationSeconds;
+
+    private MappedEventStore(ByteBuffer[] recordSegments, ByteBuffer[] stringSegments, long count, long maxDurationSeconds) {
+      this.recordSegments = recordSegments;
+      this.stringSegments = stringSegments;
+      this.count = count;
+      this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    // Writes the given events, which must be sorted by start, to a new store and maps it.
+    // The files are written next to their final location and moved into place, so an existing
+    // store at the same path stays readable until the new one is complete.
+    public static MappedEventStore write(String basePath, Iterator<CalendarEvent> sortedEvents) throws IOException {
+      File recordsFile = new File(basePath + ".events");
+      File stringsFile = new File(basePath + ".strings");
+      File recordsTmp = new File(basePath + ".events.tmp");
+      File stringsTmp = new File(basePath + ".strings.tmp");
+      long written = 0;
+      long maxDuration = 0;
+      try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordsTmp)));
+           StringHeapWriter strings = new StringHeapWriter(stringsTmp)) {
+        records.write(new byte[HEADER_SIZE]);
+        LocalDateTime previousStart = null;
+        while (sortedEvents.hasNext()) {
+          CalendarEvent event = sortedEvents.next();
+          if (previousStart != null && event.start.isBefore(previousStart)) {
+            throw new IllegalArgumentException("Events must be sorted by start to be stored.");
+          }
+          previousStart = event.start;
+          long start = toEpochSecond(event.start);
+          long end = toEpochSecond(event.end);
+          maxDuration = Math.max(maxDuration, end - start);
+          byte[] name = event.eventName().getBytes(StandardCharsets.UTF_8);
+          byte[] description = event.description().getBytes(StandardCharsets.UTF_8);
+          byte[] location = event.location().getBytes(StandardCharsets.UTF_8);
+          records.writeLong(start);
+          records.writeLong(end);
+          records.writeLong(strings.offsetOf(event.eventName(), name));
+          records.writeLong(strings.offsetOf(event.description(), description));
+          records.writeLong(strings.offsetOf(event.location(), location));
+          records.writeInt(name.length);
+          records.writeInt(description.length);
+          records.writeInt(location.length);
+          records.writeInt((event.isAllDay ? FLAG_ALL_DAY : 0) | (event.isPublic() ? FLAG_PUBLIC : 0));
+          written++;
+        }
+      } catch (IOException | RuntimeException e) {
+        recordsTmp.delete();
+        stringsTmp.delete();
+        throw e;
+      }
+      try (RandomAccessFile header = new RandomAccessFile(recordsTmp, "rw")) {
+        header.writeInt(MAGIC);
+        header.writeInt(RECORD_SIZE);
+        header.writeLong(written);
+        header.writeLong(maxDuration);
+      }
+      Files.move(recordsTmp.toPath(), recordsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Files.move(stringsTmp.toPath(), stringsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return open(basePath);
+    }
+
+    // Maps an existing store written by write().
+    public static MappedEventStore open(String basePath) throws IOException {
+      try (FileChannel records = FileChannel.open(Paths.get(basePath + ".events"), StandardOpenOption.READ);
+           FileChannel strings = FileChannel.open(Paths.get(basePath + ".strings"), StandardOpenOption.READ)) {
+        if (records.size() < HEADER_SIZE) {
+          throw new IOException("Not an event store: " + basePath);
+        }
+        ByteBuffer header = records.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != RECORD_SIZE) {
+          throw new IOException("Not an event store: " + basePath);
+        }
+        long count = header.getLong(8);
+        long maxDuration = header.getLong(16);
+        if (records.size() < HEADER_SIZE + count * RECORD_SIZE) {
+          throw new IOException("Event store is truncated: " + basePath);
+        }
+        ByteBuffer[] recordSegments = new ByteBuffer[(int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+        for (int i = 0; i < recordSegments.length; i++) {
+          long first = (long) i * RECORDS_PER_SEGMENT;
+          long length = Math.min(RECORDS_PER_SEGMENT, count - first) * RECORD_SIZE;
+          recordSegments[i] = records.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, length);
+        }
+        long stringsSize = strings.size();
+        ByteBuffer[] stringSegments = new ByteBuffer[(int) ((stringsSize + STRING_SEGMENT_SIZE - 1) / STRING_SEGMENT_SIZE)];
+        for (int i = 0; i < stringSegments.length; i++) {
+          long first = (long) i * STRING_SEGMENT_SIZE;
+          stringSegments[i] = strings.map(FileChannel.MapMode.READ_ONLY, first, Math.min(STRING_SEGMENT_SIZE, stringsSize - first));
+        }
+        return new MappedEventStore(recordSegments, stringSegments, count, maxDuration);
+      }
+    }
+
+    // Appends strings to the heap file, reusing the offset of recently written equal values.
+    // Offsets are tracked as longs so the file may grow past 2 GB, and the dedup map only keeps
+    // the most recently used values so that writing does not hold every distinct string on the heap.
+    private static class StringHeapWriter implements Closeable {
+      static final int MAX_DEDUP_ENTRIES = 1 << 16;
+
+      private final OutputStream out;
+      private final Map<String, Long> recentOffsets = new LinkedHashMap<String, Long>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+          return size() > MAX_DEDUP_ENTRIES;
+        }
+      };
+      private long size;
+
+      StringHeapWriter(File file) throws IOException {
+        this.out = new BufferedOutputStream(new FileOutputStream(file));
+      }
+
+      // Returns the offset of the value in the heap file, writing it if it was not written recently.
+      long offsetOf(String value, byte[] bytes) throws IOException {
+        if (bytes.length == 0) {
+          return 0;
+        }
+        Long offset = recentOffsets.get(value);
+        if (offset == null) {
+          offset = size;
+          out.write(bytes);
+          size += bytes.length;
+          recentOffsets.put(value, offset);
+        }
+        return offset;
+      }
+
+      @Override
+      public void close() throws IOException {
+        out.close();
+      }
+    }
+
+    // Reads events lazily from a CSV file written by "export cal", one line at a time.
+    // Parse and read failures surface as unchecked exceptions from next().
+    static class CsvEventReader implements Iterator<CalendarEvent>, Closeable {
+      private static final DateTimeFormatter CSV_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+      private final BufferedReader reader;
+      private String nextLine;
+
+      CsvEventReader(String fileName) throws IOException {
+        reader = new BufferedReader(new FileReader(fileName));
+        String header = reader.readLine();
+        if (header == null || !header.startsWith("EventName,Start,End")) {
+          reader.close();
+          throw new IOException("Not a calendar CSV export: " + fileName);
+        }
+        nextLine = readLine();
+      }
+
+      private String readLine() throws IOException {
+        String line;
+        do {
+          line = reader.readLine();
+        } while (line != null && line.isEmpty());
+        return line;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return nextLine != null;
+      }
+
+      @Override
+      public CalendarEvent next() {
+        if (nextLine == null) {
+          throw new NoSuchElementException();
+        }
+        List<String> fields = splitFields(nextLine);
+        if (fields.size() != 7) {
+          throw new IllegalArgumentException("Invalid CSV line: " + nextLine);
+        }
+        CalendarEvent event = new CalendarEvent(fields.get(0),
+                LocalDateTime.parse(fields.get(1), CSV_FORMAT),
+                LocalDateTime.parse(fields.get(2), CSV_FORMAT),
+                Boolean.parseBoolean(fields.get(3)));
+        event.attributes.description = fields.get(4);
+        event.attributes.location = fields.get(5);
+        event.attributes.isPublic = Boolean.parseBoolean(fields.get(6));
+        try {
+          nextLine = readLine();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return event;
+      }
+
+      // Splits a line on commas; quoted fields run to the next quote followed by a comma or the line end.
+      private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        int position = 0;
+        while (position <= line.length()) {
+          int end;
+          if (position < line.length() && line.charAt(position) == '"') {
+            int close = line.indexOf("\",", position + 1);
+            if (close < 0) {
+              close = line.endsWith("\"") ? line.length() - 1 : line.length();
+            }
+            fields.add(line.substring(position + 1, close));
+            end = close + 1;
+          } else {
+            end = line.indexOf(',', position);
+            if (end < 0) {
+              end = line.length();
+            }
+            fields.add(line.substring(position, end));
+          }
+          position = end + 1;
+        }
+        return fields;
+      }
+
+      @Override
+      public void close() throws IOException {
+        reader.close();
+      }
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+      return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+      return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    // Longest duration of any stored event, in seconds.
+    public long maxDurationSeconds() {
+      return maxDurationSeconds;
+    }
+
+    // Random-access view of the stored events in start order; every get materializes one event.
+    public List<CalendarEvent> asList() {
+      if (count > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Event store is too large for a list view.");
+      }
+      return new ListView();
+    }
+
+    private class ListView extends AbstractList<CalendarEvent> implements RandomAccess {
+      @Override
+      public CalendarEvent get(int index) {
+        if (index < 0 || index >= count) {
+          throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return eventAt(index);
+      }
+
+      @Override
+      public int size() {
+        return (int) count;
+      }
+    }
+
+    // Number of events in the store.
+    public long size() {
+      return count;
+    }
+
+    private ByteBuffer segment(long index) {
+      return recordSegments[(int) (index / RECORDS_PER_SEGMENT)];
+    }
+
+    private int position(long index) {
+      return (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private long startAt(long index) {
+      return segment(index).getLong(position(index));
+    }
+
+    private long endAt(long index) {
+      return segment(index).getLong(position(index) + 8);
+    }
+
+    private int flagsAt(long index) {
+      return segment(index).getInt(position(index) + 52);
+    }
+
+    // Returns the index of the first record whose start is at or after the given epoch second.
+    private long lowerBound(long epochSecond) {
+      long lo = 0;
+      long hi = count;
+      while (lo < hi) {
+        long mid = (lo + hi) >>> 1;
+        if (startAt(mid) < epochSecond) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    // Returns the index of the first record that could still be running at the given epoch second.
+    private long firstCandidate(long epochSecond) {
+      return lowerBound(epochSecond - maxDurationSeconds);
+    }
+
+    private String stringAt(long offset, int length) {
+      if (length == 0) {
+        return "";
+      }
+      byte[] bytes = new byte[length];
+      int copied = 0;
+      while (copied < length) {
+        long current = offset + copied;
+        ByteBuffer segment = stringSegments[(int) (current / STRING_SEGMENT_SIZE)];
+        int position = (int) (current % STRING_SEGMENT_SIZE);
+        int chunk = Math.min(length - copied, segment.limit() - position);
+        segment.duplicate().position(position).get(bytes, copied, chunk);
+        copied += chunk;
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Materializes the record at the given index as a CalendarEvent.
+    private CalendarEvent eventAt(long index) {
+      ByteBuffer segment = segment(index);
+      int position = position(index);
+      int flags = segment.getInt(position + 52);
+      CalendarEvent event = new CalendarEvent(
+              stringAt(segment.getLong(position + 16), segment.getInt(position + 40)),
+              fromEpochSecond(segment.getLong(position)),
+              fromEpochSecond(segment.getLong(position + 8)),
+              (flags & FLAG_ALL_DAY) != 0);
+      event.attributes.description = stringAt(segment.getLong(position + 24), segment.getInt(position + 44));
+      event.attributes.location = stringAt(segment.getLong(position + 32), segment.getInt(position + 48));
+      event.attributes.isPublic = (flags & FLAG_PUBLIC) != 0;
+      return event;
+    }
+
+    // Returns stored events that occur on the given date, using the same rules as CalendarManager.
+    public List<CalendarEvent> getEventsOn(LocalDate date) {
+      List<CalendarEvent> result = new ArrayList<>();
+      eventsOn(date).forEachRemaining(result::add);
+      return result;
+    }
+
+    // Returns stored events overlapping the given time range.
+    public List<CalendarEvent> getEventsInRange(LocalDateTime startRange, LocalDateTime endRange) {
+      List<CalendarEvent> result = new ArrayList<>();
+      eventsInRange(startRange, endRange).forEachRemaining(result::add);
+      return result;
+    }
+
+    // Returns the index of the first record that could still be running at the given epoch second,
+    // or of the first record starting at or after startingAt if that is given and later.
+    private long firstCandidate(long epochSecond, LocalDateTime startingAt) {
+      long first = firstCandidate(epochSecond);
+      return startingAt == null ? first : Math.max(first, lowerBound(toEpochSecond(startingAt)));
+    }
+
+    // Lazily iterates over the stored events that occur on the given date.
+    public Iterator<CalendarEvent> eventsOn(LocalDate date) {
+      return eventsOn(date, null);
+    }
+
+    // As above, but skips the events starting before startingAt (if not null).
+    public Iterator<CalendarEvent> eventsOn(LocalDate date, LocalDateTime startingAt) {
+      long dayStart = toEpochSecond(date.atStartOfDay());
+      long dayEnd = toEpochSecond(date.plusDays(1).atStartOfDay());
+      return scan(firstCandidate(dayStart, startingAt), lowerBound(dayEnd), i -> {
+        if ((flagsAt(i) & FLAG_ALL_DAY) != 0) {
+          return startAt(i) >= dayStart;
+        }
+        return endAt(i) >= dayStart;
+      });
+    }
+
+    // Lazily iterates over the stored events overlapping the given time range.
+    public Iterator<CalendarEvent> eventsInRange(LocalDateTime startRange, LocalDateTime endRange) {
+      return eventsInRange(startRange, endRange, null);
+    }
+
+    // As above, but skips the events starting before startingAt (if not null).
+    public Iterator<CalendarEvent> eventsInRange(LocalDateTime startRange, LocalDateTime endRange,
+                                                 LocalDateTime startingAt) {
+      long rangeStart = toEpochSecond(startRange);
+      return scan(firstCandidate(rangeStart, startingAt), lowerBound(toEpochSecond(endRange)), i -> endAt(i) > rangeStart);
+    }
+
+    // Iterates over the records in [first, last) accepted by the filter, materializing one event at a time.
+    private Iterator<CalendarEvent> scan(long first, long last, LongPredicate filter) {
+      return new Iterator<CalendarEvent>() {
+        private long next = advance(first);
+
+        private long advance(long index) {
+          while (index < last && !filter.test(index)) {
+            index++;
+          }
+          return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < last;
+        }
+
+        @Override
+        public CalendarEvent next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          CalendarEvent event = eventAt(next);
+          next = advance(next + 1);
+          return event;
+        }
+      };
+    }
+
+    // Checks whether any stored event is running at the given date/time.
+    public boolean isBusyAt(LocalDateTime dateTime) {
+      long time = toEpochSecond(dateTime);
+      long last = lowerBound(time + 1);
+      for (long i = firstCandidate(time); i < last; i++) {
+        if (endAt(i) > time) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // Iterates over all stored events in start order, materializing one event at a time.
+    @Override
+    public Iterator<CalendarEvent> iterator() {
+      return scan(0, count, i -> true);
+    }
+  }
+
+  // Minute-level occupancy of the calendar, kept per day so that busy summaries can be answered
+  // without scanning events. Each day holds a 1440-bit bitmap of busy minutes plus running totals
+  // of busy minutes and overlapping events per hour and for the whole day; adding an event sets its
+  // minutes and bumps only the counters whose minutes became busy, so every bucket lookup is O(1).
+  // Events only ever get added and edits cannot change times, so nothing needs to be cleared.
+  public static class OccupancyIndex {
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Map<LocalDate, DayOccupancy> days = new HashMap<>();
+
+    private static class DayOccupancy {
+      final long[] minutes = new long[(MINUTES_PER_DAY + 63) / 64];
+      final int[] hourBusy = new int[24];
+      final int[] hourEvents = new int[24];
+      int dayBusy;
+      int dayEvents;
+
+      // Marks the minutes in [from, to) busy and returns how many were not busy before.
+      int mark(int from, int to) {
+        int added = 0;
+        while (from < to) {
+          int word = from >>> 6;
+          int bit = from & 63;
+          int span = Math.min(64 - bit, to - from);
+          long mask = (span == 64 ? -1L : (1L << span) - 1) << bit;
+          added += Long.bitCount(mask & ~minutes[word]);
+          minutes[word] |= mask;
+          from += span;
+        }
+        return added;
+      }
+    }
+
+    // Records an event; it counts toward every hour and day it overlaps.
+    public void add(CalendarEvent event) {
+      LocalDateTime start = event.start.truncatedTo(ChronoUnit.MINUTES);
+      LocalDateTime end = event.end.truncatedTo(ChronoUnit.MINUTES);
+      if (end.isBefore(event.end)) {
+        end = end.plusMinutes(1);
+      }
+      if (!end.isAfter(start)) {
+        // Zero-length events occupy no time but still count in the hour they start.
+        DayOccupancy day = day(start.toLocalDate());
+        day.dayEvents++;
+        day.hourEvents[start.getHour()]++;
+        return;
+      }
+      LocalDate startDate = start.toLocalDate();
+      LocalDate endDate = end.toLocalDate();
+      for (LocalDate date = startDate; date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+        DayOccupancy day = day(date);
+        int from = date.equals(startDate) ? start.getHour() * 60 + start.getMinute() : 0;
+        int to = date.equals(endDate) ? end.getHour() * 60 + end.getMinute() : MINUTES_PER_DAY;
+        day.dayEvents++;
+        for (int hour = from / 60; hour * 60 < to; hour++) {
+          int added = day.mark(Math.max(from, hour * 60), Math.min(to, hour * 60 + 60));
+          day.hourEvents[hour]++;
+          day.hourBusy[hour] += added;
+          day.dayBusy += added;
+        }
+      }
+    }
+
+    private DayOccupancy day(LocalDate date) {
+      return days.computeIfAbsent(date, d -> new DayOccupancy());
+    }
+
+    // Minutes of the given day covered by at least one event.
+    public int busyMinutes(LocalDate date) {
+      DayOccupancy day = days.get(date);
+      return day == null ? 0 : day.dayBusy;
+    }
+
+    // Minutes of the given hour covered by at least one event.
+    public int busyMinutes(LocalDate date, int hour) {
+      DayOccupancy day = days.get(date);
+      return day == null ? 0 : day.hourBusy[hour];
+    }
+
+    // Number of events overlapping the given day.
+    public int eventCount(LocalDate date) {
+      DayOccupancy day = days.get(date);
+      return day == null ? 0 : day.dayEvents;
+    }
+
+    // Number of events overlapping the given hour.
+    public int eventCount(LocalDate date, int hour) {
+      DayOccupancy day = days.get(date);
+      return day == null ? 0 : day.hourEvents[hour];
+    }
+  }
+
+  // Lazily produces the occurrences of a recurring event.
+  // Matching weekdays are kept in a bitmask (bit 0 = Monday ... bit 6 = Sunday) and the gap to the
+  // next matching weekday is precomputed for every day of the week, so each call to next() jumps
+  // straight to the following occurrence instead of stepping through the calendar one day at a time.
+  // The number of occurrences is known up front, which bounds the series and lets it be streamed.
+  public static class RecurrenceGenerator implements Iterator<CalendarEvent> {
+    // Hard upper bound on the number of occurrences a single recurring event may produce.
+    static final int MAX_OCCURRENCES = 100_000;
+
+    // Attribute holder shared by every occurrence of the series.
+    private final EventAttributes attributes;
+    private final LocalTime startTime;
+    private final Duration duration;
+    private final boolean isAllDay;
+    // nextOffset[d] is the number of days from weekday index d to the next matching weekday (1..7).
+    private final int[] nextOffset = new int[7];
+    private final long total;
+    private LocalDate current;
+    private long produced;
+
+    private RecurrenceGenerator(String eventName, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                int weekdayMask, long total, boolean isAllDay) {
+      this.attributes = new EventAttributes(eventName);
+      this.startTime = startDateTime.toLocalTime();
+      this.duration = Duration.between(startDateTime, endDateTime);
+      this.isAllDay = isAllDay;
+      this.total = total;
+      for (int d = 0; d < 7; d++) {
+        int k = 1;
+        while ((weekdayMask & (1 << ((d + k) % 7))) == 0) {
+          k++;
+        }
+        nextOffset[d] = k;
+      }
+      LocalDate first = startDateTime.toLocalDate();
+      int firstIndex = dayIndex(first);
+      if ((weekdayMask & (1 << firstIndex)) == 0) {
+        first = first.plusDays(nextOffset[firstIndex]);
+      }
+      this.current = first;
+    }
+
+    // Creates a generator producing exactly the given number of occurrences.
+    public static RecurrenceGenerator forCount(String eventName, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                               int weekdayMask, int count, boolean isAllDay) throws Exception {
+      validate(startDateTime, endDateTime, weekdayMask);
+      if (count <= 0) {
+        throw new Exception("Number of occurrences must be positive.");
+      }
+      if (count > MAX_OCCURRENCES) {
+        throw new Exception("Recurring event exceeds the maximum of " + MAX_OCCURRENCES + " occurrences.");
+      }
+      return new RecurrenceGenerator(eventName, startDateTime, endDateTime, weekdayMask, count, isAllDay);
+    }
+
+    // Creates a generator producing every occurrence that starts before the given date/time.
+    public static RecurrenceGenerator until(String eventName, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                            int weekdayMask, LocalDateTime untilDateTime, boolean isAllDay) throws Exception {
+      validate(startDateTime, endDateTime, weekdayMask);
+      // The last date whose occurrence still starts strictly before the until date/time.
+      LocalDate lastDate = untilDateTime.toLocalDate();
+      if (!startDateTime.toLocalTime().isBefore(untilDateTime.toLocalTime())) {
+        lastDate = lastDate.minusDays(1);
+      }
+      long days = ChronoUnit.DAYS.between(startDateTime.toLocalDate(), lastDate) + 1;
+      long count = 0;
+      if (days > 0) {
+        count = (days / 7) * Integer.bitCount(weekdayMask);
+        int startIndex = dayIndex(startDateTime.toLocalDate());
+        for (int i = 0; i < days % 7; i++) {
+          if ((weekdayMask & (1 << ((startIndex + i) % 7))) != 0) {
+            count++;
+          }
+        }
+      }
+      if (count > MAX_OCCURRENCES) {
+        throw new Exception("Recurring event exceeds the maximum of " + MAX_OCCURRENCES + " occurrences.");
+      }
+      return new RecurrenceGenerator(eventName, startDateTime, endDateTime, weekdayMask, count, isAllDay);
+    }
+
+    // Converts a weekday string such as "MTWRF" into a bitmask.
+    public static int parseWeekdayMask(String weekdaysStr) throws Exception {
+      int mask = 0;
+      for (char c : weekdaysStr.toCharArray()) {
+        switch (c) {
+          case 'M': mask |= 1 << dayIndex(DayOfWeek.MONDAY); break;
+          case 'T': mask |= 1 << dayIndex(DayOfWeek.TUESDAY); break;
+          case 'W': mask |= 1 << dayIndex(DayOfWeek.WEDNESDAY); break;
+          case 'R': mask |= 1 << dayIndex(DayOfWeek.THURSDAY); break;
+          case 'F': mask |= 1 << dayIndex(DayOfWeek.FRIDAY); break;
+          case 'S': mask |= 1 << dayIndex(DayOfWeek.SATURDAY); break;
+          case 'U': mask |= 1 << dayIndex(DayOfWeek.SUNDAY); break;
+          default: throw new Exception("Invalid weekday character: " + c);
+        }
+      }
+      return mask;
+    }
+
+    private static void validate(LocalDateTime startDateTime, LocalDateTime endDateTime, int weekdayMask) throws Exception {
+      if ((weekdayMask & 0x7F) == 0) {
+        throw new Exception("Recurring event must repeat on at least one weekday.");
+      }
+      if (endDateTime.isBefore(startDateTime)) {
+        throw new Exception("Recurring event ends before it starts.");
+      }
+    }
+
+    private static int dayIndex(DayOfWeek day) {
+      return day.getValue() - 1;
     }
 
-    // Two events conflict if their time intervals overlap.
-    public boolean conflictsWith(CalendarEvent other) {
-      return this.start.isBefore(other.end) && this.end.isAfter(other.start);
+    private static int dayIndex(LocalDate date) {
+      return dayIndex(date.getDayOfWeek());
+    }
+
+    // Total number of occurrences in the series.
+    public long size() {
+      return total;
     }
 
     @Override
-    public String toString() {
-      DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-      String base = "";
-      if (isAllDay) {
-        base = String.format("%s (All Day on %s)", eventName, start.toLocalDate());
-      } else {
-        base = String.format("%s from %s to %s", eventName, start.format(dtf), end.format(dtf));
-      }
-      if (!description.isEmpty()) {
-        base += ", Description: " + description;
-      }
-      if (!location.isEmpty()) {
-        base += ", Location: " + location;
+    public boolean hasNext() {
+      return produced < total;
+    }
+
+    @Override
+    public CalendarEvent next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
       }
-      base += ", " + (isPublic ? "Public" : "Private");
-      return base;
+      LocalDateTime occStart = LocalDateTime.of(current, startTime);
+      CalendarEvent occurrence = new CalendarEvent(attributes, occStart, occStart.plus(duration), isAllDay);
+      produced++;
+      current = current.plusDays(nextOffset[dayIndex(current)]);
+      return occurrence;
+    }
+
+    // Exposes the remaining occurrences as a sized, ordered spliterator.
+    public Spliterator<CalendarEvent> spliterator() {
+      return Spliterators.spliterator(this, total - produced,
+              Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    // Streams the remaining occurrences without buffering them.
+    public Stream<CalendarEvent> stream() {
+      return StreamSupport.stream(spliterator(), false);
     }
   }
 
-  // Manages the list of calendar events and provides operations on them.
-  public static class CalendarManager {
-    List<CalendarEvent> events;
+  // Emits deterministic synthetic command files for load testing headless mode.
+  // The same options and seed always produce the same file. Options are key=value pairs:
+  //   seed, commands, days (span of generated dates), start (first date), overlap (probability that a
+  //   timed event starts inside an earlier one), exportFile, and a relative weight per command kind:
+  //   create, recurring, allday, autodecline, edit, edits, print, status, export.
+  // Generated files replay without errors: autoDecline events get one of the 10-minute slots between
+  // 00:00 and 08:00 on a day with no all-day event, and timed events always start between 08:00 and 20:00.
+  // Kinds that cannot be placed fall back to another kind (mostly a plain create); the mix actually
+  // written is kept in realized.
+  public static class WorkloadGenerator {
+    static final String[] KINDS = {"create", "recurring", "allday", "autodecline", "edit", "edits", "print", "status", "export"};
+    static final int[] DURATIONS = {15, 30, 45, 60, 90, 120, 180, 240};
+    static final String WEEKDAYS = "MTWRFSU";
+    // AutoDecline events fill back-to-back slots of this length before 08:00.
+    static final int DECLINE_SLOT_MINUTES = 10;
+    static final int DECLINE_SLOTS = 8 * 60 / DECLINE_SLOT_MINUTES;
 
-    public CalendarManager() {
-      events = new ArrayList<>();
+    long seed = 42;
+    int commands = 1000;
+    int days = 90;
+    LocalDate start = LocalDate.of(2025, 1, 1);
+    double overlap = 0.2;
+    String exportFile = "workload_export.csv";
+    final Map<String, Integer> weights = new LinkedHashMap<>();
+    // Number of commands of each kind written by the last generate call.
+    final Map<String, Integer> realized = new LinkedHashMap<>();
+
+    private Random random;
+    private final List<CalendarEvent> singles = new ArrayList<>();
+    private final List<CalendarEvent> seriesStarts = new ArrayList<>();
+    // Days set aside for autoDecline events, with the number of slots used on each.
+    private final Map<LocalDate, Integer> declineSlots = new HashMap<>();
+    // Days from declineSlots that still have a free slot.
+    private final List<LocalDate> openDeclineDays = new ArrayList<>();
+    private int nextId;
+
+    public WorkloadGenerator() {
+      int[] defaults = {30, 5, 5, 5, 15, 5, 20, 14, 1};
+      for (int i = 0; i < KINDS.length; i++) {
+        weights.put(KINDS[i], defaults[i]);
+      }
     }
 
-    // Adds an event; if autoDecline is true, a conflict will cancel creation.
-    public boolean addEvent(CalendarEvent newEvent, boolean autoDecline) throws Exception {
-      for (CalendarEvent event : events) {
-        if (newEvent.conflictsWith(event)) {
-          if (autoDecline) {
-            throw new Exception("Conflict detected with event: " + event.eventName);
-          } else {
-            System.out.println("Warning: Event conflicts with " + event.eventName);
-          }
+    // Builds a generator from key=value options, keeping defaults for anything not given.
+    public static WorkloadGenerator fromOptions(String[] options) throws Exception {
+      WorkloadGenerator generator = new WorkloadGenerator();
+      for (String option : options) {
+        String[] pair = option.split("=", 2);
+        if (pair.length < 2) {
+          throw new Exception("Invalid workload option: " + option);
+        }
+        String key = pair[0].trim().toLowerCase();
+        String value = pair[1].trim();
+        switch (key) {
+          case "seed": generator.seed = Long.parseLong(value); break;
+          case "commands": generator.commands = Integer.parseInt(value); break;
+          case "days": generator.days = Integer.parseInt(value); break;
+          case "start": generator.start = LocalDate.parse(value, CommandParser.dateFormatter); break;
+          case "overlap": generator.overlap = Double.parseDouble(value); break;
+          case "exportfile": generator.exportFile = value; break;
+          default:
+            if (!generator.weights.containsKey(key)) {
+              throw new Exception("Unknown workload option: " + key);
+            }
+            generator.weights.put(key, Integer.parseInt(value));
         }
       }
-      events.add(newEvent);
-      // Sort events based on start date/time.
-      Collections.sort(events, Comparator.comparing(e -> e.start));
-      return true;
+      if (generator.days <= 0 || generator.commands < 0) {
+        throw new Exception("Workload needs a positive number of days and a non-negative number of commands.");
+      }
+      if (generator.weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+        throw new Exception("At least one command kind needs a positive weight.");
+      }
+      return generator;
     }
 
-    // Returns events that occur on the given date.
-    public List<CalendarEvent> getEventsOn(LocalDate date) {
-      List<CalendarEvent> result = new ArrayList<>();
-      for (CalendarEvent event : events) {
-        if (event.isAllDay) {
-          if (event.start.toLocalDate().equals(date)) {
-            result.add(event);
-          }
-        } else {
-          // For timed events, check if the event spans the queried date.
-          if (!event.start.toLocalDate().isAfter(date) && !event.end.toLocalDate().isBefore(date)) {
-            result.add(event);
+    // Writes the workload and returns the number of commands written.
+    public int generate(PrintWriter out) throws Exception {
+      random = new Random(seed);
+      singles.clear();
+      seriesStarts.clear();
+      declineSlots.clear();
+      openDeclineDays.clear();
+      realized.clear();
+      for (String kind : KINDS) {
+        realized.put(kind, 0);
+      }
+      nextId = 0;
+      int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+      reserveDeclineDays((long) commands * weights.get("autodecline") / total);
+      for (int i = 0; i < commands; i++) {
+        int pick = random.nextInt(total);
+        String kind = null;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+          pick -= entry.getValue();
+          if (pick < 0) {
+            kind = entry.getKey();
+            break;
           }
         }
+        out.println(command(kind));
       }
-      return result;
+      out.flush();
+      return commands;
     }
 
-    // Returns events within the given time range.
-    public List<CalendarEvent> getEventsInRange(LocalDateTime startRange, LocalDateTime endRange) {
-      List<CalendarEvent> result = new ArrayList<>();
-      for (CalendarEvent event : events) {
-        if (event.start.isBefore(endRange) && event.end.isAfter(startRange)) {
-          result.add(event);
+    // Sets aside enough random days to hold the expected number of autoDecline events, plus one for
+    // sampling noise. All-day events never land on these days, so every slot on them stays free
+    // until an autoDecline event takes it.
+    private void reserveDeclineDays(long expected) {
+      if (expected == 0) {
+        return;
+      }
+      long wanted = Math.min(days, expected / DECLINE_SLOTS + 2);
+      while (declineSlots.size() < wanted) {
+        LocalDate day = randomDay();
+        if (declineSlots.putIfAbsent(day, 0) == null) {
+          openDeclineDays.add(day);
         }
       }
-      return result;
     }
 
-    // Exports the current calendar events to a CSV file in our custom format.
-    public void exportToCSV(String fileName) {
-      try (PrintWriter writer = new PrintWriter(new File(fileName))) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("EventName,Start,End,AllDay,Description,Location,Public\n");
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        for (CalendarEvent event : events) {
-          sb.append("\"" + event.eventName + "\",");
-          sb.append(event.start.format(dtf) + ",");
-          sb.append(event.end.format(dtf) + ",");
-          sb.append(event.isAllDay + ",");
-          sb.append("\"" + event.description + "\",");
-          sb.append("\"" + event.location + "\",");
-          sb.append(event.isPublic + "\n");
-        }
-        writer.write(sb.toString());
-        File file = new File(fileName);
-        System.out.println("Exported to CSV: " + file.getAbsolutePath());
-      } catch (Exception e) {
-        System.out.println("Error exporting CSV: " + e.getMessage());
+    private String command(String kind) throws Exception {
+      switch (kind) {
+        case "recurring": return createRecurring();
+        case "allday": return createAllDay();
+        case "autodecline": return createAutoDecline();
+        case "edit": return editSingle();
+        case "edits": return editSeries();
+        case "print": return print();
+        case "status":
+          return emit("status", "show status on " + format(randomDay().atTime(random.nextInt(24), 15 * random.nextInt(4))));
+        case "export": return emit("export", (random.nextBoolean() ? "export cal " : "export googlecsv ") + exportFile);
+        default: return createSingle();
       }
     }
 
-    // Exports the calendar events to a CSV file that follows the Google Calendar import format.
-    public void exportToGoogleCSV(String fileName) {
-      try (PrintWriter writer = new PrintWriter(new File(fileName))) {
-        // Google Calendar CSV headers:
-        // Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private
-        StringBuilder sb = new StringBuilder();
-        sb.append("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private\n");
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+    private String createSingle() {
+      LocalDateTime eventStart = null;
+      if (!singles.isEmpty() && random.nextDouble() < overlap) {
+        CalendarEvent other = singles.get(random.nextInt(singles.size()));
+        long slots = Math.max(1, Duration.between(other.start, other.end).toMinutes() / 15);
+        eventStart = other.start.plusMinutes(15 * (long) random.nextInt((int) slots));
+        // Stay within the 08:00-20:00 start window so timed events never reach the autoDecline slots.
+        if (!eventStart.toLocalDate().equals(other.start.toLocalDate()) || eventStart.getHour() >= 20) {
+          eventStart = other.start;
+        }
+      }
+      if (eventStart == null) {
+        eventStart = randomDay().atTime(8 + random.nextInt(11), 15 * random.nextInt(4));
+      }
+      CalendarEvent event = new CalendarEvent("Event" + nextId++, eventStart, eventStart.plusMinutes(duration()), false);
+      singles.add(event);
+      return emit("create", "create event " + event.eventName() + " from " + format(event.start) + " to " + format(event.end));
+    }
 
-        for (CalendarEvent event : events) {
-          sb.append("\"" + event.eventName + "\",");
-          if (event.isAllDay) {
-            // For all-day events, only the date is needed. Leave time blank.
-            sb.append(event.start.format(dateFormatter) + ",,");
-            sb.append(event.start.format(dateFormatter) + ",,");
-            sb.append("True,");
-          } else {
-            sb.append(event.start.format(dateFormatter) + ",");
-            sb.append(event.start.format(timeFormatter) + ",");
-            sb.append(event.end.format(dateFormatter) + ",");
-            sb.append(event.end.format(timeFormatter) + ",");
-            sb.append("False,");
-          }
-          sb.append("\"" + event.description + "\",");
-          sb.append("\"" + event.location + "\",");
-          // Google CSV uses 'Private' where True means the event is private.
-          // Here, if event.isPublic is true, we output False.
-          sb.append(event.isPublic ? "False" : "True");
-          sb.append("\n");
+    private String createRecurring() throws Exception {
+      String name = "Series" + nextId++;
+      StringBuilder weekdays = new StringBuilder();
+      for (char c : WEEKDAYS.toCharArray()) {
+        if (random.nextInt(3) == 0) {
+          weekdays.append(c);
         }
-        writer.write(sb.toString());
-        File file = new File(fileName);
-        System.out.println("Exported to Google CSV: " + file.getAbsolutePath());
-      } catch (Exception e) {
-        System.out.println("Error exporting Google CSV: " + e.getMessage());
       }
+      if (weekdays.length() == 0) {
+        weekdays.append(WEEKDAYS.charAt(random.nextInt(WEEKDAYS.length())));
+      }
+      int mask = RecurrenceGenerator.parseWeekdayMask(weekdays.toString());
+      LocalDate day = randomDay();
+      boolean byCount = random.nextBoolean();
+      int count = 2 + random.nextInt(9);
+      LocalDate untilDate = day.plusDays(7 + random.nextInt(22));
+      // All-day series may not cover a day set aside for autoDecline events; those become timed series.
+      boolean allDay = !random.nextBoolean() && !coversDeclineDay(byCount
+              ? RecurrenceGenerator.forCount(name, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), mask, count, true)
+              : RecurrenceGenerator.until(name, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), mask,
+                      untilDate.plusDays(1).atStartOfDay(), true));
+      if (!allDay) {
+        LocalDateTime seriesStart = day.atTime(8 + random.nextInt(11), 15 * random.nextInt(4));
+        LocalDateTime seriesEnd = seriesStart.plusMinutes(duration());
+        seriesStarts.add(new CalendarEvent(name, seriesStart, seriesEnd, false));
+        return emit("recurring", "create event " + name + " from " + format(seriesStart) + " to " + format(seriesEnd)
+                + " repeats " + weekdays + (byCount ? " for " + count + " times" : " until " + format(untilDate.atTime(23, 59))));
+      }
+      seriesStarts.add(new CalendarEvent(name, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), true));
+      return emit("recurring", "create event " + name + " on " + day.format(CommandParser.dateFormatter) + " repeats "
+              + weekdays + (byCount ? " for " + count + " times" : " until " + untilDate.format(CommandParser.dateFormatter)));
     }
 
-    // Checks if the calendar is busy at the given date/time.
-    public boolean isBusyAt(LocalDateTime dateTime) {
-      for (CalendarEvent event : events) {
-        if (!event.start.isAfter(dateTime) && event.end.isAfter(dateTime)) {
+    private boolean coversDeclineDay(RecurrenceGenerator occurrences) {
+      while (occurrences.hasNext()) {
+        if (declineSlots.containsKey(occurrences.next().start.toLocalDate())) {
           return true;
         }
       }
       return false;
     }
 
-    // Edit a single event identified by eventName, start, and end.
-    public boolean editSingleEvent(String property, String eventName, LocalDateTime start, LocalDateTime end, String newValue) {
-      for (CalendarEvent event : events) {
-        if (event.eventName.equals(eventName) && event.start.equals(start) && event.end.equals(end)) {
-          if (updateProperty(event, property, newValue)) {
-            return true;
-          }
+    private String createAllDay() {
+      LocalDate day = freeDay(declineSlots.keySet());
+      if (day == null) {
+        return createSingle();
+      }
+      return emit("allday", "create event Holiday" + nextId++ + " on " + day.format(CommandParser.dateFormatter));
+    }
+
+    private String createAutoDecline() {
+      if (openDeclineDays.isEmpty()) {
+        return createSingle();
+      }
+      LocalDate day = openDeclineDays.get(random.nextInt(openDeclineDays.size()));
+      int slot = declineSlots.merge(day, 1, Integer::sum) - 1;
+      if (slot + 1 == DECLINE_SLOTS) {
+        openDeclineDays.remove(day);
+      }
+      LocalDateTime slotStart = day.atStartOfDay().plusMinutes(DECLINE_SLOT_MINUTES * slot);
+      return emit("autodecline", "create event --autoDecline Focus" + nextId++ + " from " + format(slotStart)
+              + " to " + format(slotStart.plusMinutes(DECLINE_SLOT_MINUTES)));
+    }
+
+    private String editSingle() {
+      if (singles.isEmpty()) {
+        return createSingle();
+      }
+      CalendarEvent event = singles.get(random.nextInt(singles.size()));
+      String property = random.nextBoolean() ? "description" : "location";
+      return emit("edit", "edit event " + property + " " + event.eventName() + " from " + format(event.start)
+              + " to " + format(event.end) + " with " + propertyValue(property));
+    }
+
+    private String editSeries() {
+      if (seriesStarts.isEmpty()) {
+        return editSingle();
+      }
+      CalendarEvent series = seriesStarts.get(random.nextInt(seriesStarts.size()));
+      String property = new String[] {"description", "location", "public"}[random.nextInt(3)];
+      if (random.nextBoolean()) {
+        return emit("edits", "edit events " + property + " " + series.eventName() + " from " + format(series.start)
+                + " with " + propertyValue(property));
+      }
+      return emit("edits", "edit events " + property + " " + series.eventName() + " with " + propertyValue(property));
+    }
+
+    private String print() {
+      LocalDate day = randomDay();
+      String limit = random.nextInt(4) == 0 ? " limit 20" : "";
+      if (random.nextBoolean()) {
+        return emit("print", "print events on " + day.format(CommandParser.dateFormatter) + limit);
+      }
+      return emit("print", "print events from " + format(day.atStartOfDay()) + " to "
+              + format(day.plusDays(1 + random.nextInt(7)).atStartOfDay()) + limit);
+    }
+
+    // Counts a command of the given kind towards the realized mix.
+    private String emit(String kind, String command) {
+      realized.merge(kind, 1, Integer::sum);
+      return command;
+    }
+
+    private String propertyValue(String property) {
+      switch (property) {
+        case "location": return "Room " + (1 + random.nextInt(50));
+        case "public": return Boolean.toString(random.nextBoolean());
+        default: return "Notes " + random.nextInt(1000);
+      }
+    }
+
+    // Shorter durations are more likely than longer ones.
+    private int duration() {
+      double r = random.nextDouble();
+      return DURATIONS[(int) (r * r * DURATIONS.length)];
+    }
+
+    private LocalDate randomDay() {
+      return start.plusDays(random.nextInt(days));
+    }
+
+    // Picks a random day that is not in the given set, or null if none is found after a few tries.
+    private LocalDate freeDay(Set<LocalDate> taken) {
+      for (int attempt = 0; attempt < 20; attempt++) {
+        LocalDate day = randomDay();
+        if (!taken.contains(day)) {
+          return day;
         }
       }
-      return false;
+      return null;
     }
 
-    // Edit all events in the series starting at or after a given start date/time.
-    // Returns the number of events modified.
-    public int editEventsByStart(String property, String eventName, LocalDateTime start, String newValue) {
-      int count = 0;
-      for (CalendarEvent event : events) {
-        if (event.eventName.equals(eventName) && (event.start.equals(start) || event.start.isAfter(start))) {
-          if (updateProperty(event, property, newValue)) {
-            count++;
+    private static String format(LocalDateTime dateTime) {
+      return dateTime.format(CommandParser.dateTimeFormatter);
+    }
+  }
+
+  // Replays a command file through CommandParser.processCommand against a fresh calendar and
+  // measures throughput, per-command latency and, where the JVM supports it, bytes allocated.
+  // Command output is discarded so that only command processing is timed; failing commands are
+  // counted and replay continues.
+  public static class ThroughputRunner {
+    int commands;
+    int errors;
+    long elapsedNanos;
+    long allocatedBytes = -1;
+    long[] latencies;
+    final Map<String, List<Long>> latenciesByKind = new TreeMap<>();
+
+    // Replays the file warmups times untimed, then once measured.
+    public static ThroughputRunner replay(String fileName, int warmups) throws IOException {
+      List<String> lines = new ArrayList<>();
+      try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+        String line;
+        while ((line = br.readLine()) != null && !line.equalsIgnoreCase("exit")) {
+          if (!line.trim().isEmpty()) {
+            lines.add(line);
           }
         }
       }
-      return count;
+      PrintStream console = System.out;
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+      try {
+        for (int i = 0; i < warmups; i++) {
+          new ThroughputRunner().run(lines);
+        }
+        ThroughputRunner result = new ThroughputRunner();
+        result.run(lines);
+        return result;
+      } finally {
+        System.setOut(console);
+      }
     }
 
-    // Edit all events with the given event name.
-    // Returns the number of events modified.
-    public int editEventsByName(String property, String eventName, String newValue) {
-      int count = 0;
-      for (CalendarEvent event : events) {
-        if (event.eventName.equals(eventName)) {
-          if (updateProperty(event, property, newValue)) {
-            count++;
-          }
+    private void run(List<String> lines) {
+      CalendarManager calendar = new CalendarManager();
+      latencies = new long[lines.size()];
+      // Kinds are worked out up front so that the measured loop only allocates for the commands.
+      String[] kinds = new String[lines.size()];
+      for (int i = 0; i < kinds.length; i++) {
+        kinds[i] = kindOf(lines.get(i));
+      }
+      ThreadMXBean allocation = null;
+      try {
+        ThreadMXBean threads = ManagementFactory.getPlatformMXBean(ThreadMXBean.class);
+        if (threads != null && threads.isThreadAllocatedMemorySupported()) {
+          allocation = threads;
         }
+      } catch (IllegalArgumentException e) {
+        // The JVM does not provide per-thread allocation counters.
+      }
+      long threadId = Thread.currentThread().getId();
+      long allocatedBefore = allocation != null ? allocation.getThreadAllocatedBytes(threadId) : 0;
+      long runStart = System.nanoTime();
+      for (String line : lines) {
+        long start = System.nanoTime();
+        try {
+          CommandParser.processCommand(line, calendar);
+        } catch (Exception e) {
+          errors++;
+        }
+        latencies[commands++] = System.nanoTime() - start;
+      }
+      elapsedNanos = System.nanoTime() - runStart;
+      if (allocation != null) {
+        allocatedBytes = allocation.getThreadAllocatedBytes(threadId) - allocatedBefore;
+      }
+      for (int i = 0; i < commands; i++) {
+        latenciesByKind.computeIfAbsent(kinds[i], k -> new ArrayList<>()).add(latencies[i]);
       }
-      return count;
     }
 
-    // Helper method to update event properties.
-    // Allowed properties: name, description, location, public.
-    private boolean updateProperty(CalendarEvent event, String property, String newValue) {
-      switch (property.toLowerCase()) {
-        case "name":
-          event.eventName = newValue;
-          break;
-        case "description":
-          event.description = newValue;
-          break;
-        case "location":
-          event.location = newValue;
-          break;
-        case "public":
-          event.isPublic = Boolean.parseBoolean(newValue);
-          break;
-        default:
-          return false;
+    // Groups commands by their first two words, e.g. "create event" or "print events".
+    private static String kindOf(String line) {
+      String[] tokens = line.trim().toLowerCase().split(" +");
+      return tokens.length < 2 ? tokens[0] : tokens[0] + " " + tokens[1];
+    }
+
+    private static double percentileMicros(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(quantile * sorted.length) - 1;
+      return sorted[Math.max(0, index)] / 1e3;
+    }
+
+    public double commandsPerSecond() {
+      return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+      long[] sorted = Arrays.copyOf(latencies, commands);
+      Arrays.sort(sorted);
+      out.printf("Replayed %d command(s) in %.1f ms: %.0f commands/sec, %d error(s).%n",
+              commands, elapsedNanos / 1e6, commandsPerSecond(), errors);
+      out.printf("Latency (us): p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", percentileMicros(sorted, 0.5),
+              percentileMicros(sorted, 0.9), percentileMicros(sorted, 0.99), percentileMicros(sorted, 1.0));
+      if (allocatedBytes >= 0 && commands > 0) {
+        out.printf("Allocation: %d bytes/command (%d bytes total).%n", allocatedBytes / commands, allocatedBytes);
+      } else {
+        out.println("Allocation: not supported by this JVM.");
+      }
+      for (Map.Entry<String, List<Long>> entry : latenciesByKind.entrySet()) {
+        long[] kindSorted = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+        double mean = Arrays.stream(kindSorted).average().orElse(0) / 1e3;
+        out.printf("  %-16s %6d command(s), mean %.1f us, p99 %.1f us%n",
+                entry.getKey(), kindSorted.length, mean, percentileMicros(kindSorted, 0.99));
       }
-      return true;
     }
   }
 
@@ -308,7 +2417,17 @@ public class CalendarApp {
 
     public static void processCommand(String command, CalendarManager calendar) throws Exception {
       String lowerCmd = command.toLowerCase();
-      if (lowerCmd.startsWith("create event")) {
+      if (lowerCmd.trim().equals("begin")) {
+        calendar.beginTransaction();
+        System.out.println("Transaction started.");
+      } else if (lowerCmd.trim().equals("commit")) {
+        int[] applied = calendar.commitTransaction();
+        System.out.println("Transaction committed: " + applied[0] + " event(s) created, "
+                + applied[1] + " event update(s) applied.");
+      } else if (lowerCmd.trim().equals("rollback")) {
+        calendar.rollbackTransaction();
+        System.out.println("Transaction rolled back.");
+      } else if (lowerCmd.startsWith("create event")) {
         processCreateEvent(command, calendar);
       } else if (lowerCmd.startsWith("edit events")) {  // Check plural first
         processEditCommand(command, calendar, true);
@@ -320,10 +2439,20 @@ public class CalendarApp {
         processPrintEventsRange(command, calendar);
       } else if (lowerCmd.startsWith("export cal")) {
         processExportCal(command, calendar);
+      } else if (lowerCmd.startsWith("show busy summary")) {
+        processShowBusySummary(command, calendar);
+      } else if (lowerCmd.startsWith("show conflicts")) {
+        processShowConflicts(command, calendar);
       } else if (lowerCmd.startsWith("show status on")) {
         processShowStatus(command, calendar);
       } else if (lowerCmd.startsWith("export googlecsv")) {
         processExportGoogleCSV(command, calendar);
+      } else if (lowerCmd.startsWith("archive calendar")) {
+        processArchiveCalendar(command, calendar);
+      } else if (lowerCmd.startsWith("open archive")) {
+        processOpenArchive(command, calendar);
+      } else if (lowerCmd.startsWith("import archive")) {
+        processImportArchive(command, calendar);
       } else {
         throw new Exception("Invalid command: " + command);
       }
@@ -357,11 +2486,11 @@ public class CalendarApp {
           String repeatPart = toParts[1].trim();
           LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
           LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-          List<CalendarEvent> occurrences = generateRecurringEvents(eventName, startDateTime, endDateTime, repeatPart, false);
-          for (CalendarEvent occurrence : occurrences) {
-            calendar.addEvent(occurrence, autoDecline);
+          RecurrenceGenerator occurrences = generateRecurringEvents(eventName, startDateTime, endDateTime, repeatPart, false);
+          while (occurrences.hasNext()) {
+            calendar.addEvent(occurrences.next(), autoDecline);
           }
-          System.out.println("Recurring event created with " + occurrences.size() + " occurrences.");
+          System.out.println("Recurring event " + creationVerb(calendar) + " with " + occurrences.size() + " occurrences.");
         } else {
           // Single timed event.
           String endStr = afterTo.trim();
@@ -369,7 +2498,7 @@ public class CalendarApp {
           LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
           CalendarEvent event = new CalendarEvent(eventName, startDateTime, endDateTime, false);
           calendar.addEvent(event, autoDecline);
-          System.out.println("Event created: " + event);
+          System.out.println("Event " + creationVerb(calendar) + ": " + event);
         }
       } else if (command.contains(" on ")) {
         // Pattern: create event <eventName> on <date> [repeats ...]
@@ -384,11 +2513,11 @@ public class CalendarApp {
           // For an all-day event, the start is the beginning of the day and the end is the beginning of the next day.
           LocalDateTime startDateTime = date.atStartOfDay();
           LocalDateTime endDateTime = date.plusDays(1).atStartOfDay();
-          List<CalendarEvent> occurrences = generateRecurringEvents(eventName, startDateTime, endDateTime, repeatPart, true);
-          for (CalendarEvent occurrence : occurrences) {
-            calendar.addEvent(occurrence, autoDecline);
+          RecurrenceGenerator occurrences = generateRecurringEvents(eventName, startDateTime, endDateTime, repeatPart, true);
+          while (occurrences.hasNext()) {
+            calendar.addEvent(occurrences.next(), autoDecline);
           }
-          System.out.println("Recurring all-day event created with " + occurrences.size() + " occurrences.");
+          System.out.println("Recurring all-day event " + creationVerb(calendar) + " with " + occurrences.size() + " occurrences.");
         } else {
           // Single all-day event.
           String dateStr = remainder.trim();
@@ -397,34 +2526,25 @@ public class CalendarApp {
           LocalDateTime endDateTime = date.plusDays(1).atStartOfDay();
           CalendarEvent event = new CalendarEvent(eventName, startDateTime, endDateTime, true);
           calendar.addEvent(event, autoDecline);
-          System.out.println("All-day event created: " + event);
+          System.out.println("All-day event " + creationVerb(calendar) + ": " + event);
         }
       } else {
         throw new Exception("Invalid create event command format.");
       }
     }
 
+    // Describes a create as staged while a transaction is open.
+    private static String creationVerb(CalendarManager calendar) {
+      return calendar.inTransaction() ? "staged" : "created";
+    }
+
     // Generates recurring event occurrences.
     // repeatPart examples: "MTWRF for 5 times" or "MRU until 2025-03-10T00:00"
-    private static List<CalendarEvent> generateRecurringEvents(String eventName, LocalDateTime startDateTime,
+    private static RecurrenceGenerator generateRecurringEvents(String eventName, LocalDateTime startDateTime,
                                                                LocalDateTime endDateTime, String repeatPart, boolean isAllDay) throws Exception {
-      List<CalendarEvent> occurrences = new ArrayList<>();
       // The weekdays string is assumed to be the first token.
       String[] tokens = repeatPart.split(" ");
-      String weekdaysStr = tokens[0].trim().toUpperCase();
-      Set<DayOfWeek> weekdays = new HashSet<>();
-      for (char c : weekdaysStr.toCharArray()) {
-        switch (c) {
-          case 'M': weekdays.add(DayOfWeek.MONDAY); break;
-          case 'T': weekdays.add(DayOfWeek.TUESDAY); break;
-          case 'W': weekdays.add(DayOfWeek.WEDNESDAY); break;
-          case 'R': weekdays.add(DayOfWeek.THURSDAY); break;
-          case 'F': weekdays.add(DayOfWeek.FRIDAY); break;
-          case 'S': weekdays.add(DayOfWeek.SATURDAY); break;
-          case 'U': weekdays.add(DayOfWeek.SUNDAY); break;
-          default: throw new Exception("Invalid weekday character: " + c);
-        }
-      }
+      int weekdayMask = RecurrenceGenerator.parseWeekdayMask(tokens[0].trim().toUpperCase());
       // Determine recurrence based on a fixed number of occurrences or an end date.
       if (repeatPart.toLowerCase().contains(" for ")) {
         // Expected format: <weekdays> for <N> times
@@ -432,16 +2552,7 @@ public class CalendarApp {
           throw new Exception("Invalid recurring event format (for N times).");
         }
         int occurrencesCount = Integer.parseInt(tokens[2]);
-        LocalDateTime current = startDateTime;
-        while (occurrences.size() < occurrencesCount) {
-          if (weekdays.contains(current.getDayOfWeek())) {
-            LocalDate currentDate = current.toLocalDate();
-            LocalDateTime occStart = LocalDateTime.of(currentDate, startDateTime.toLocalTime());
-            LocalDateTime occEnd = LocalDateTime.of(currentDate, endDateTime.toLocalTime());
-            occurrences.add(new CalendarEvent(eventName, occStart, occEnd, isAllDay));
-          }
-          current = current.plusDays(1);
-        }
+        return RecurrenceGenerator.forCount(eventName, startDateTime, endDateTime, weekdayMask, occurrencesCount, isAllDay);
       } else if (repeatPart.toLowerCase().contains(" until ")) {
         // Expected format: <weekdays> until <dateTime> (or date for all-day events)
         int index = repeatPart.toLowerCase().indexOf("until");
@@ -453,20 +2564,10 @@ public class CalendarApp {
         } else {
           untilDateTime = LocalDateTime.parse(untilPart, dateTimeFormatter);
         }
-        LocalDateTime current = startDateTime;
-        while (!current.isAfter(untilDateTime.minusSeconds(1))) {
-          if (weekdays.contains(current.getDayOfWeek())) {
-            LocalDate currentDate = current.toLocalDate();
-            LocalDateTime occStart = LocalDateTime.of(currentDate, startDateTime.toLocalTime());
-            LocalDateTime occEnd = LocalDateTime.of(currentDate, endDateTime.toLocalTime());
-            occurrences.add(new CalendarEvent(eventName, occStart, occEnd, isAllDay));
-          }
-          current = current.plusDays(1);
-        }
+        return RecurrenceGenerator.until(eventName, startDateTime, endDateTime, weekdayMask, untilDateTime, isAllDay);
       } else {
         throw new Exception("Invalid recurring event format.");
       }
-      return occurrences;
     }
 
     // Processes commands for editing events.
@@ -514,7 +2615,9 @@ public class CalendarApp {
             LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
             boolean updated = calendar.editSingleEvent(property, eventName, startDateTime, endDateTime, newValue);
-            if (updated) {
+            if (calendar.inTransaction()) {
+              System.out.println("Edit staged until commit.");
+            } else if (updated) {
               System.out.println("Event updated successfully.");
             } else {
               System.out.println("Event not found or update failed.");
@@ -523,7 +2626,11 @@ public class CalendarApp {
             // Plural edit with "from": update all events with eventName starting at or after given date/time.
             LocalDateTime startDateTime = LocalDateTime.parse(afterFrom, dateTimeFormatter);
             int count = calendar.editEventsByStart(property, eventName, startDateTime, newValue);
-            System.out.println(count + " event(s) updated starting from " + startDateTime);
+            if (calendar.inTransaction()) {
+              System.out.println("Edit staged until commit.");
+            } else {
+              System.out.println(count + " event(s) updated starting from " + startDateTime);
+            }
           }
         } else {
           // Plural edit without "from": update all events with the given eventName.
@@ -534,35 +2641,166 @@ public class CalendarApp {
           String property = tokens[0].trim();
           String eventName = tokens[1].trim();
           int count = calendar.editEventsByName(property, eventName, newValue);
-          System.out.println(count + " event(s) updated with new " + property);
+          if (calendar.inTransaction()) {
+            System.out.println("Edit staged until commit.");
+          } else {
+            System.out.println(count + " event(s) updated with new " + property);
+          }
         }
       } else {
         throw new Exception("Edit command must contain 'with' clause.");
       }
     }
 
+    // Paging options accepted at the end of the print commands:
+    // [limit <n>] [offset <n>] [after <cursor>]
+    // A cursor has the form <dateTime>+<n> and resumes after the n-th event starting at that time.
+    static class PageOptions {
+      String query;
+      int limit = Integer.MAX_VALUE;
+      int offset = 0;
+      LocalDateTime afterStart;
+      int afterCount;
+
+      static PageOptions parse(String remainder) throws Exception {
+        PageOptions page = new PageOptions();
+        String[] tokens = remainder.trim().split(" +");
+        int i = 0;
+        StringBuilder query = new StringBuilder();
+        while (i < tokens.length && !isPageKeyword(tokens[i])) {
+          query.append(i == 0 ? "" : " ").append(tokens[i]);
+          i++;
+        }
+        page.query = query.toString();
+        while (i < tokens.length) {
+          if (i + 1 >= tokens.length || !isPageKeyword(tokens[i])) {
+            throw new Exception("Invalid paging option: " + tokens[i]);
+          }
+          String value = tokens[i + 1];
+          switch (tokens[i].toLowerCase()) {
+            case "limit":
+              page.limit = Integer.parseInt(value);
+              if (page.limit <= 0) {
+                throw new Exception("Limit must be positive.");
+              }
+              break;
+            case "offset":
+              page.offset = Integer.parseInt(value);
+              if (page.offset < 0) {
+                throw new Exception("Offset must not be negative.");
+              }
+              break;
+            default:
+              int plus = value.lastIndexOf('+');
+              if (plus < 0) {
+                throw new Exception("Invalid cursor: " + value);
+              }
+              page.afterStart = LocalDateTime.parse(value.substring(0, plus), dateTimeFormatter);
+              page.afterCount = Integer.parseInt(value.substring(plus + 1));
+              break;
+          }
+          i += 2;
+        }
+        return page;
+      }
+
+      private static boolean isPageKeyword(String token) {
+        return token.equalsIgnoreCase("limit") || token.equalsIgnoreCase("offset") || token.equalsIgnoreCase("after");
+      }
+    }
+
+    // Visitor that prints one page of a query's events into a buffered writer.
+    // Events are formatted as they are visited and the query is stopped as soon as the page is
+    // full, so memory use is bounded by the page size rather than the number of matches.
+    static class EventPagePrinter implements Predicate<CalendarEvent> {
+      private final PageOptions page;
+      private final PrintWriter out;
+      private final String header;
+      private int printed;
+      private int skipped;
+      private boolean hasMore;
+      // Start of the last visited event and its position among events sharing that start.
+      private LocalDateTime groupStart;
+      private int groupIndex;
+      // Cursor pointing just past the last printed event.
+      private LocalDateTime cursorStart;
+      private int cursorCount;
+
+      EventPagePrinter(PageOptions page, PrintWriter out, String header) {
+        this.page = page;
+        this.out = out;
+        this.header = header;
+      }
+
+      @Override
+      public boolean test(CalendarEvent event) {
+        if (event.start.equals(groupStart)) {
+          groupIndex++;
+        } else {
+          groupStart = event.start;
+          groupIndex = 1;
+        }
+        // Queries seek to the cursor's start time, so only events sharing it are skipped here.
+        if (page.afterStart != null && (event.start.isBefore(page.afterStart)
+                || (event.start.equals(page.afterStart) && groupIndex <= page.afterCount))) {
+          return true;
+        }
+        if (skipped < page.offset) {
+          skipped++;
+          return true;
+        }
+        if (printed == page.limit) {
+          hasMore = true;
+          return false;
+        }
+        if (printed == 0) {
+          out.println(header);
+        }
+        out.print(" - ");
+        event.printTo(out);
+        out.println();
+        printed++;
+        cursorStart = groupStart;
+        cursorCount = groupIndex;
+        return true;
+      }
+
+      // Prints the trailer for the page: the empty message or a continuation cursor.
+      void finish(String emptyMessage) {
+        if (printed == 0) {
+          out.println(emptyMessage);
+        } else if (hasMore) {
+          out.println("More events available; continue with: after "
+                  + cursorStart.format(dateTimeFormatter) + "+" + cursorCount);
+        }
+        out.flush();
+      }
+    }
+
+    // Runs a visitor-based query and prints one page of its events.
+    private static void printEventPage(Consumer<Predicate<CalendarEvent>> query, PageOptions page,
+                                       String header, String emptyMessage) {
+      PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+      EventPagePrinter printer = new EventPagePrinter(page, out, header);
+      query.accept(printer);
+      printer.finish(emptyMessage);
+    }
+
     // Processes the command to print events on a specific date.
-    // Command pattern: print events on <date>
+    // Command pattern: print events on <date> [limit <n>] [offset <n>] [after <cursor>]
     private static void processPrintEventsOn(String command, CalendarManager calendar) throws Exception {
       String[] parts = command.split(" on ", 2);
       if (parts.length < 2) {
         throw new Exception("Invalid command format for printing events.");
       }
-      String dateStr = parts[1].trim();
-      LocalDate date = LocalDate.parse(dateStr, dateFormatter);
-      List<CalendarEvent> events = calendar.getEventsOn(date);
-      if (events.isEmpty()) {
-        System.out.println("No events found on " + date);
-      } else {
-        System.out.println("Events on " + date + ":");
-        for (CalendarEvent event : events) {
-          System.out.println(" - " + event);
-        }
-      }
+      PageOptions page = PageOptions.parse(parts[1]);
+      LocalDate date = LocalDate.parse(page.query, dateFormatter);
+      printEventPage(visitor -> calendar.forEachEventOn(date, page.afterStart, visitor), page,
+              "Events on " + date + ":", "No events found on " + date);
     }
 
     // Processes the command to print events in a date/time range.
-    // Command pattern: print events from <dateTime> to <dateTime>
+    // Command pattern: print events from <dateTime> to <dateTime> [limit <n>] [offset <n>] [after <cursor>]
     private static void processPrintEventsRange(String command, CalendarManager calendar) throws Exception {
       String[] parts = command.split(" from ", 2);
       if (parts.length < 2) {
@@ -574,18 +2812,13 @@ public class CalendarApp {
       }
       String[] timeParts = remainder.split(" to ", 2);
       String startStr = timeParts[0].trim();
-      String endStr = timeParts[1].trim();
+      PageOptions page = PageOptions.parse(timeParts[1]);
       LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
-      LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-      List<CalendarEvent> events = calendar.getEventsInRange(startDateTime, endDateTime);
-      if (events.isEmpty()) {
-        System.out.println("No events found between " + startDateTime + " and " + endDateTime);
-      } else {
-        System.out.println("Events between " + startDateTime + " and " + endDateTime + ":");
-        for (CalendarEvent event : events) {
-          System.out.println(" - " + event);
-        }
-      }
+      LocalDateTime endDateTime = LocalDateTime.parse(page.query, dateTimeFormatter);
+      printEventPage(visitor -> calendar.forEachEventInRange(startDateTime, endDateTime, page.afterStart, visitor),
+              page,
+              "Events between " + startDateTime + " and " + endDateTime + ":",
+              "No events found between " + startDateTime + " and " + endDateTime);
     }
 
     // Processes the command to export the calendar to a CSV file (custom format).
@@ -610,6 +2843,119 @@ public class CalendarApp {
       calendar.exportToGoogleCSV(fileName);
     }
 
+    // Processes the command to move the calendar into a memory-mapped archive.
+    // Command pattern: archive calendar <basePath>
+    private static void processArchiveCalendar(String command, CalendarManager calendar) throws Exception {
+      String[] tokens = command.split(" ");
+      if (tokens.length < 3) {
+        throw new Exception("Invalid archive calendar command format.");
+      }
+      String basePath = tokens[2].trim();
+      long count = calendar.archiveTo(basePath);
+      System.out.println("Archived " + count + " event(s) to " + new File(basePath + ".events").getAbsolutePath());
+    }
+
+    // Processes the command to stream a CSV export into the memory-mapped archive.
+    // Command pattern: import archive <fileName.csv> into <basePath>
+    private static void processImportArchive(String command, CalendarManager calendar) throws Exception {
+      String[] tokens = command.trim().split(" +");
+      if (tokens.length < 5 || !tokens[3].equalsIgnoreCase("into")) {
+        throw new Exception("Invalid import archive command format.");
+      }
+      long count = calendar.importArchive(tokens[2], tokens[4]);
+      System.out.println("Archive now holds " + count + " event(s).");
+    }
+
+    // Processes the command to attach an existing memory-mapped archive.
+    // Command pattern: open archive <basePath>
+    private static void processOpenArchive(String command, CalendarManager calendar) throws Exception {
+      String[] tokens = command.split(" ");
+      if (tokens.length < 3) {
+        throw new Exception("Invalid open archive command format.");
+      }
+      String basePath = tokens[2].trim();
+      long count = calendar.openArchive(basePath);
+      System.out.println("Opened archive with " + count + " event(s).");
+    }
+
+    // Processes the command to report every pair of overlapping events, optionally within a range.
+    // Command pattern: show conflicts [from <dateTime> to <dateTime>]
+    private static void processShowConflicts(String command, CalendarManager calendar) throws Exception {
+      LocalDateTime startDateTime = null;
+      LocalDateTime endDateTime = null;
+      if (command.contains(" from ")) {
+        String remainder = command.split(" from ", 2)[1].trim();
+        if (!remainder.contains(" to ")) {
+          throw new Exception("Missing 'to' clause in conflict range.");
+        }
+        String[] timeParts = remainder.split(" to ", 2);
+        startDateTime = LocalDateTime.parse(timeParts[0].trim(), dateTimeFormatter);
+        endDateTime = LocalDateTime.parse(timeParts[1].trim(), dateTimeFormatter);
+      } else if (!command.trim().equalsIgnoreCase("show conflicts")) {
+        throw new Exception("Invalid command format for show conflicts.");
+      }
+      // Pairs are written as they are found rather than collected first. The sink runs on pool
+      // threads, so the writer is bound to this thread's real output stream.
+      PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(OutputRouter.resolve(System.out))));
+      long count = calendar.forEachConflict(startDateTime, endDateTime, (earlier, later) -> {
+        String line = " - " + earlier + " overlaps " + later;
+        synchronized (out) {
+          out.println(line);
+        }
+      });
+      out.flush();
+      System.out.println(count == 0 ? "No conflicts found." : count + " conflicting pair(s) found.");
+    }
+
+    // Processes the command to summarize busy time per day or per hour over a date range.
+    // Command pattern: show busy summary from <date> to <date> [granularity hour|day]
+    // Both dates are inclusive; the granularity defaults to day.
+    private static void processShowBusySummary(String command, CalendarManager calendar) throws Exception {
+      String[] parts = command.split(" from ", 2);
+      if (parts.length < 2) {
+        throw new Exception("Invalid command format for show busy summary.");
+      }
+      String remainder = parts[1].trim();
+      boolean hourly = false;
+      int granularityIndex = remainder.toLowerCase().indexOf(" granularity ");
+      if (granularityIndex >= 0) {
+        String granularity = remainder.substring(granularityIndex + " granularity ".length()).trim();
+        if (granularity.equalsIgnoreCase("hour")) {
+          hourly = true;
+        } else if (!granularity.equalsIgnoreCase("day")) {
+          throw new Exception("Invalid granularity: " + granularity);
+        }
+        remainder = remainder.substring(0, granularityIndex);
+      }
+      if (!remainder.contains(" to ")) {
+        throw new Exception("Missing 'to' clause in busy summary range.");
+      }
+      String[] dateParts = remainder.split(" to ", 2);
+      LocalDate startDate = LocalDate.parse(dateParts[0].trim(), dateFormatter);
+      LocalDate endDate = LocalDate.parse(dateParts[1].trim(), dateFormatter);
+      if (endDate.isBefore(startDate)) {
+        throw new Exception("Busy summary range ends before it starts.");
+      }
+      OccupancyIndex occupancy = calendar.occupancy();
+      PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+      out.println("Busy summary from " + startDate + " to " + endDate + " by " + (hourly ? "hour" : "day") + ":");
+      long totalBusy = 0;
+      for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+        if (hourly) {
+          for (int hour = 0; hour < 24; hour++) {
+            out.printf("%s %02d:00: %d busy minute(s), %d event(s)%n",
+                    date, hour, occupancy.busyMinutes(date, hour), occupancy.eventCount(date, hour));
+          }
+        } else {
+          out.printf("%s: %d busy minute(s), %d event(s)%n",
+                  date, occupancy.busyMinutes(date), occupancy.eventCount(date));
+        }
+        totalBusy += occupancy.busyMinutes(date);
+      }
+      out.println("Total: " + totalBusy + " busy minute(s).");
+      out.flush();
+    }
+
     // Processes the command to show status at a specific date/time.
     // Command pattern: show status on <dateTime>
     private static void processShowStatus(String command, CalendarManager calendar) throws Exception {
@@ -54,6 +54,22 @@ public class CalendarAppTest {
     testEditEventsWithoutFrom();
     testPrintEventsRange();
     testShowStatus();
+    testRecurringEventUntilDate();
+    testRecurringEventOccurrenceBound();
+    testRecurrenceStream();
+    testArchivedEventQueries();
+    testArchiveCsvImport();
+    testTransactionCommit();
+    testTransactionConflictRollsBack();
+    testTransactionConflictFollowsStagingOrder();
+    testConflictReport();
+    testArchivedConflictReport();
+    testPagedPrintEvents();
+    testRangeQuerySeek();
+    testHeadlessBatchMode();
+    testBusySummary();
+    testWorkloadGeneratorReplay();
+    testSharedSeriesAttributes();
   }
 
   // Test when a required keyword ("from") is missing in create command.
@@ -156,8 +172,8 @@ public class CalendarAppTest {
               "edit events description Seminar from 2025-03-04T00:00 with UpdatedSeminar", manager);
       boolean found = false;
       for (CalendarApp.CalendarEvent event : manager.events) {
-        if (event.eventName.equals("Seminar") &&
-                event.description.equals("UpdatedSeminar") &&
+        if (event.eventName().equals("Seminar") &&
+                event.description().equals("UpdatedSeminar") &&
                 event.start.isAfter(java.time.LocalDateTime.parse("2025-03-04T00:00"))) {
           found = true;
           break;
@@ -179,7 +195,7 @@ public class CalendarAppTest {
       CalendarApp.CommandParser.processCommand("edit events description Seminar with BulkUpdate", manager);
       int count = 0;
       for (CalendarApp.CalendarEvent event : manager.events) {
-        if (event.eventName.equals("Seminar") && event.description.equals("BulkUpdate")) {
+        if (event.eventName().equals("Seminar") && event.description().equals("BulkUpdate")) {
           count++;
         }
       }
@@ -224,4 +240,482 @@ public class CalendarAppTest {
       System.out.println("FAILED: Exception occurred - " + e.getMessage());
     }
   }
+
+  // Test that an "until" series jumps straight to each matching weekday.
+  private static void testRecurringEventUntilDate() {
+    System.out.println("\nTest: Recurring Event until Date");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Seminar from 2025-03-03T09:00 to 2025-03-03T10:30 repeats WF until 2025-03-14T09:00", manager);
+      // Wed 5th, Fri 7th, Wed 12th; Fri 14th starts exactly at the until time and is excluded.
+      int total = manager.events.size();
+      boolean datesMatch = total == 3
+              && manager.events.get(0).start.equals(java.time.LocalDateTime.parse("2025-03-05T09:00"))
+              && manager.events.get(1).start.equals(java.time.LocalDateTime.parse("2025-03-07T09:00"))
+              && manager.events.get(2).end.equals(java.time.LocalDateTime.parse("2025-03-12T10:30"));
+      System.out.println(datesMatch ? "PASSED: 3 occurrences on the expected dates."
+              : "FAILED: Unexpected occurrences, got " + total);
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that a series can be streamed with a known size and without materializing it first.
+  private static void testRecurrenceStream() {
+    System.out.println("\nTest: Recurrence Stream");
+    try {
+      CalendarApp.RecurrenceGenerator series = CalendarApp.RecurrenceGenerator.until("Seminar",
+              java.time.LocalDateTime.parse("2025-03-03T09:00"), java.time.LocalDateTime.parse("2025-03-03T10:30"),
+              CalendarApp.RecurrenceGenerator.parseWeekdayMask("WF"), java.time.LocalDateTime.parse("2025-03-14T09:00"),
+              false);
+      long reported = series.spliterator().getExactSizeIfKnown();
+      java.util.List<String> dates = new java.util.ArrayList<>();
+      series.stream().forEach(event -> dates.add(event.start.toLocalDate().toString()));
+      boolean passed = reported == 3 && series.size() == 3
+              && dates.equals(java.util.Arrays.asList("2025-03-05", "2025-03-07", "2025-03-12"));
+      System.out.println(passed ? "PASSED: Streamed 3 occurrences with a known size."
+              : "FAILED: Reported size " + reported + ", streamed " + dates);
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that runaway recurring series are rejected before any event is created.
+  private static void testRecurringEventOccurrenceBound() {
+    System.out.println("\nTest: Recurring Event Occurrence Bound");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Standup from 2025-03-03T09:00 to 2025-03-03T09:15 repeats MTWRF for 1000000 times", manager);
+      System.out.println("FAILED: Expected exception for too many occurrences.");
+    } catch (Exception e) {
+      System.out.println(manager.events.isEmpty() ? "PASSED: " + e.getMessage()
+              : "FAILED: Events were created before the bound was checked.");
+    }
+  }
+
+  // Test that events moved into a memory-mapped archive are still found by queries.
+  private static void testArchivedEventQueries() {
+    System.out.println("\nTest: Archived Event Queries");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    String basePath = new java.io.File(System.getProperty("java.io.tmpdir"), "calendar_archive_test").getPath();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Meeting from 2025-03-01T10:00 to 2025-03-01T11:00", manager);
+      CalendarApp.CommandParser.processCommand("create event Workshop on 2025-03-02", manager);
+      CalendarApp.CommandParser.processCommand(
+              "edit event location Meeting from 2025-03-01T10:00 to 2025-03-01T11:00 with Room 5", manager);
+      CalendarApp.CommandParser.processCommand("archive calendar " + basePath, manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Review from 2025-03-02T15:00 to 2025-03-02T16:00", manager);
+      java.util.List<CalendarApp.CalendarEvent> onFirst = manager.getEventsOn(java.time.LocalDate.parse("2025-03-01"));
+      java.util.List<CalendarApp.CalendarEvent> inRange = manager.getEventsInRange(
+              java.time.LocalDateTime.parse("2025-03-01T00:00"), java.time.LocalDateTime.parse("2025-03-03T00:00"));
+      boolean passed = manager.events.size() == 1
+              && onFirst.size() == 1 && onFirst.get(0).location().equals("Room 5")
+              && inRange.size() == 3 && inRange.get(2).eventName().equals("Review")
+              && manager.isBusyAt(java.time.LocalDateTime.parse("2025-03-01T10:30"))
+              && !manager.isBusyAt(java.time.LocalDateTime.parse("2025-03-01T11:00"));
+      System.out.println(passed ? "PASSED: Archived events returned by queries."
+              : "FAILED: Archived events not returned as expected.");
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    } finally {
+      new java.io.File(basePath + ".events").delete();
+      new java.io.File(basePath + ".strings").delete();
+    }
+  }
+
+  // Test that a CSV export can be streamed into an existing archive.
+  private static void testArchiveCsvImport() {
+    System.out.println("\nTest: Archive CSV Import");
+    String tmp = System.getProperty("java.io.tmpdir");
+    String csvPath = new java.io.File(tmp, "calendar_import_test.csv").getPath();
+    String basePath = new java.io.File(tmp, "calendar_import_test").getPath();
+    java.io.PrintStream originalOut = System.out;
+    try {
+      CalendarApp.CalendarManager source = new CalendarApp.CalendarManager();
+      CalendarApp.CommandParser.processCommand(
+              "create event Review from 2025-03-01T09:00 to 2025-03-01T10:00", source);
+      CalendarApp.CommandParser.processCommand(
+              "edit event location Review from 2025-03-01T09:00 to 2025-03-01T10:00 with Room 2", source);
+      CalendarApp.CommandParser.processCommand("create event Offsite on 2025-03-03", source);
+      System.setOut(new java.io.PrintStream(new java.io.ByteArrayOutputStream()));
+      source.exportToCSV(csvPath);
+      System.setOut(originalOut);
+
+      CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+      CalendarApp.CommandParser.processCommand(
+              "create event Meeting from 2025-03-02T10:00 to 2025-03-02T11:00", manager);
+      CalendarApp.CommandParser.processCommand("archive calendar " + basePath, manager);
+      CalendarApp.CommandParser.processCommand("import archive " + csvPath + " into " + basePath, manager);
+      java.util.List<CalendarApp.CalendarEvent> all = manager.getEventsInRange(
+              java.time.LocalDateTime.parse("2025-03-01T00:00"), java.time.LocalDateTime.parse("2025-03-04T00:00"));
+      boolean passed = manager.archive.size() == 3 && all.size() == 3
+              && all.get(0).eventName().equals("Review") && all.get(0).location().equals("Room 2")
+              && all.get(1).eventName().equals("Meeting")
+              && all.get(2).eventName().equals("Offsite") && all.get(2).isAllDay;
+      System.out.println(passed ? "PASSED: CSV events merged into the archive."
+              : "FAILED: Imported archive does not hold the expected events.");
+    } catch (Exception e) {
+      System.setOut(originalOut);
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    } finally {
+      new java.io.File(csvPath).delete();
+      new java.io.File(basePath + ".events").delete();
+      new java.io.File(basePath + ".strings").delete();
+    }
+  }
+
+  // Test that staged creates and edits are applied together on commit.
+  private static void testTransactionCommit() {
+    System.out.println("\nTest: Transaction Commit");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand("begin", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Seminar from 2025-03-04T09:00 to 2025-03-04T10:00", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Seminar from 2025-03-03T09:00 to 2025-03-03T10:00", manager);
+      CalendarApp.CommandParser.processCommand("edit events location Seminar with Room 1", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Seminar from 2025-03-05T09:00 to 2025-03-05T10:00", manager);
+      boolean stagedOnly = manager.events.isEmpty();
+      // Attaching an archive would change what the commit checks for conflicts.
+      boolean archiveRefused = false;
+      try {
+        CalendarApp.CommandParser.processCommand("open archive calendar_missing_archive", manager);
+      } catch (Exception e) {
+        archiveRefused = e.getMessage().startsWith("Cannot open an archive") && manager.inTransaction();
+      }
+      CalendarApp.CommandParser.processCommand("commit", manager);
+      // The edit only sees the two events created before it.
+      boolean passed = stagedOnly && archiveRefused && manager.events.size() == 3
+              && manager.events.get(0).start.equals(java.time.LocalDateTime.parse("2025-03-03T09:00"))
+              && manager.events.get(0).location().equals("Room 1")
+              && manager.events.get(1).location().equals("Room 1")
+              && manager.events.get(2).location().isEmpty();
+      System.out.println(passed ? "PASSED: Transaction applied on commit."
+              : "FAILED: Transaction not applied as expected.");
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that an autoDecline conflict inside a transaction discards every staged mutation.
+  private static void testTransactionConflictRollsBack() {
+    System.out.println("\nTest: Transaction Conflict Rolls Back");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Meeting from 2025-03-01T10:00 to 2025-03-01T11:00", manager);
+      CalendarApp.CommandParser.processCommand("begin", manager);
+      CalendarApp.CommandParser.processCommand(
+              "edit event description Meeting from 2025-03-01T10:00 to 2025-03-01T11:00 with Changed", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Lunch from 2025-03-01T12:00 to 2025-03-01T13:00", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event Call --autoDecline from 2025-03-01T12:30 to 2025-03-01T12:45", manager);
+      CalendarApp.CommandParser.processCommand("commit", manager);
+      System.out.println("FAILED: Expected exception due to conflict.");
+    } catch (Exception e) {
+      boolean untouched = manager.events.size() == 1 && manager.events.get(0).description().isEmpty()
+              && !manager.inTransaction();
+      System.out.println(untouched ? "PASSED: " + e.getMessage()
+              : "FAILED: Calendar changed by a rolled back transaction.");
+    }
+  }
+
+  // Test that only the later-staged event of a conflicting pair is declined, as without a transaction.
+  private static void testTransactionConflictFollowsStagingOrder() {
+    System.out.println("\nTest: Transaction Conflict Follows Staging Order");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand("begin", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event A --autoDecline from 2025-03-01T10:00 to 2025-03-01T11:00", manager);
+      CalendarApp.CommandParser.processCommand(
+              "create event B from 2025-03-01T10:30 to 2025-03-01T11:30", manager);
+      CalendarApp.CommandParser.processCommand("commit", manager);
+      boolean committed = manager.events.size() == 2;
+
+      CalendarApp.CalendarManager declined = new CalendarApp.CalendarManager();
+      CalendarApp.CommandParser.processCommand("begin", declined);
+      CalendarApp.CommandParser.processCommand(
+              "create event B from 2025-03-01T10:30 to 2025-03-01T11:30", declined);
+      CalendarApp.CommandParser.processCommand(
+              "create event A --autoDecline from 2025-03-01T10:00 to 2025-03-01T11:00", declined);
+      try {
+        CalendarApp.CommandParser.processCommand("commit", declined);
+        System.out.println("FAILED: Expected the later autoDecline event to be declined.");
+        return;
+      } catch (Exception e) {
+        committed &= declined.events.isEmpty() && e.getMessage().endsWith("event: B");
+      }
+      System.out.println(committed ? "PASSED: Staging order decides which event is declined."
+              : "FAILED: Transaction outcome differs from sequential execution.");
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that the parallel conflict report finds the same pairs as a pairwise comparison.
+  private static void testConflictReport() {
+    System.out.println("\nTest: Conflict Report");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      java.time.LocalDateTime base = java.time.LocalDateTime.parse("2025-03-01T00:00");
+      for (int i = 0; i < 3000; i++) {
+        // Every event overlaps the next one; every hundredth one runs for a whole day.
+        java.time.LocalDateTime start = base.plusMinutes(60L * i);
+        manager.events.add(new CalendarApp.CalendarEvent("E" + i, start,
+                start.plusMinutes(i % 100 == 0 ? 1440 : 90), false));
+      }
+      long expected = 0;
+      for (int i = 0; i < manager.events.size(); i++) {
+        for (int j = i + 1; j < manager.events.size(); j++) {
+          if (manager.events.get(i).conflictsWith(manager.events.get(j))) {
+            expected++;
+          }
+        }
+      }
+      java.util.Set<String> pairs = java.util.concurrent.ConcurrentHashMap.newKeySet();
+      long reported = manager.forEachConflict(null, null,
+              (a, b) -> pairs.add(a.eventName() + "/" + b.eventName()));
+      long inRange = manager.forEachConflict(base.plusHours(10), base.plusHours(12), (a, b) -> { });
+      // E9/E10 and E10/E11 overlap within the range, as does the day-long E0 with E9, E10 and E11.
+      // E12 starts when the range ends.
+      if (reported == expected && pairs.size() == expected && inRange == 5) {
+        System.out.println("PASSED: " + reported + " conflicting pairs reported.");
+      } else {
+        System.out.println("FAILED: Expected " + expected + " pairs, got " + reported + " (" + inRange + " in range)");
+      }
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that the conflict report includes pairs involving archived events.
+  private static void testArchivedConflictReport() {
+    System.out.println("\nTest: Archived Conflict Report");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    String basePath = new java.io.File(System.getProperty("java.io.tmpdir"), "calendar_conflict_test").getPath();
+    try {
+      java.time.LocalDateTime base = java.time.LocalDateTime.parse("2025-03-01T00:00");
+      for (int i = 0; i < 200; i++) {
+        java.time.LocalDateTime start = base.plusMinutes(60L * i);
+        manager.events.add(new CalendarApp.CalendarEvent("A" + i, start, start.plusMinutes(90), false));
+      }
+      CalendarApp.CommandParser.processCommand("archive calendar " + basePath, manager);
+      for (int i = 0; i < 200; i++) {
+        // Live events interleave with the archived ones and with each other.
+        java.time.LocalDateTime start = base.plusMinutes(60L * i + 30);
+        manager.events.add(new CalendarApp.CalendarEvent("L" + i, start, start.plusMinutes(i % 50 == 0 ? 600 : 45), false));
+      }
+      java.util.List<CalendarApp.CalendarEvent> all = manager.getEventsInRange(base, base.plusDays(30));
+      long expected = 0;
+      for (int i = 0; i < all.size(); i++) {
+        for (int j = i + 1; j < all.size(); j++) {
+          if (all.get(i).conflictsWith(all.get(j))) {
+            expected++;
+          }
+        }
+      }
+      java.util.Set<String> pairs = java.util.concurrent.ConcurrentHashMap.newKeySet();
+      long reported = manager.forEachConflict(null, null,
+              (a, b) -> pairs.add(a.eventName() + "/" + b.eventName()));
+      if (all.size() == 400 && reported == expected && pairs.size() == expected && pairs.contains("A10/L10")) {
+        System.out.println("PASSED: " + reported + " conflicting pairs reported across archive.");
+      } else {
+        System.out.println("FAILED: Expected " + expected + " pairs, got " + reported);
+      }
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    } finally {
+      new java.io.File(basePath + ".events").delete();
+      new java.io.File(basePath + ".strings").delete();
+    }
+  }
+
+  // Test that paging options and cursors split a range query into consecutive pages.
+  private static void testPagedPrintEvents() {
+    System.out.println("\nTest: Paged Print Events");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    java.io.PrintStream originalOut = System.out;
+    java.io.ByteArrayOutputStream captured = new java.io.ByteArrayOutputStream();
+    try {
+      CalendarApp.CommandParser.processCommand("create event A from 2025-03-01T09:00 to 2025-03-01T10:00", manager);
+      CalendarApp.CommandParser.processCommand("create event B from 2025-03-01T09:00 to 2025-03-01T09:30", manager);
+      CalendarApp.CommandParser.processCommand("create event C from 2025-03-01T11:00 to 2025-03-01T12:00", manager);
+      CalendarApp.CommandParser.processCommand("create event D on 2025-03-01", manager);
+      System.setOut(new java.io.PrintStream(captured, true));
+      CalendarApp.CommandParser.processCommand(
+              "print events from 2025-03-01T00:00 to 2025-03-02T00:00 limit 2", manager);
+      CalendarApp.CommandParser.processCommand(
+              "print events from 2025-03-01T00:00 to 2025-03-02T00:00 limit 2 after 2025-03-01T09:00+1", manager);
+      CalendarApp.CommandParser.processCommand("print events on 2025-03-01 offset 3", manager);
+    } catch (Exception e) {
+      System.setOut(originalOut);
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+      return;
+    } finally {
+      System.setOut(originalOut);
+    }
+    String output = captured.toString();
+    String[] lines = output.split("\\R");
+    boolean passed = lines.length == 9
+            && lines[1].startsWith(" - D") && lines[2].startsWith(" - A")
+            && lines[3].equals("More events available; continue with: after 2025-03-01T09:00+1")
+            && lines[5].startsWith(" - B") && lines[6].startsWith(" - C")
+            && lines[7].equals("Events on 2025-03-01:") && lines[8].startsWith(" - C");
+    System.out.println(passed ? "PASSED: Pages printed with continuation cursor." : "FAILED: Unexpected output:\n" + output);
+  }
+
+  // Test that range queries starting late, or at a cursor, still see every overlapping event.
+  private static void testRangeQuerySeek() {
+    System.out.println("\nTest: Range Query Seek");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Conference from 2025-03-01T08:00 to 2025-03-04T18:00", manager);
+      java.time.LocalDateTime base = java.time.LocalDateTime.parse("2025-03-05T00:00");
+      for (int i = 0; i < 50; i++) {
+        manager.addEvent(new CalendarApp.CalendarEvent("E" + i, base.plusHours(i), base.plusHours(i).plusMinutes(30), false),
+                false);
+      }
+      java.util.List<CalendarApp.CalendarEvent> late = manager.getEventsInRange(
+              java.time.LocalDateTime.parse("2025-03-04T17:00"), base.plusHours(2));
+      java.util.List<CalendarApp.CalendarEvent> onDay = manager.getEventsOn(java.time.LocalDate.parse("2025-03-04"));
+      java.util.List<CalendarApp.CalendarEvent> resumed = new java.util.ArrayList<>();
+      manager.forEachEventInRange(java.time.LocalDateTime.parse("2025-03-01T00:00"), base.plusDays(3),
+              base.plusHours(48), resumed::add);
+      boolean passed = late.size() == 3 && late.get(0).eventName().equals("Conference")
+              && onDay.size() == 1 && resumed.size() == 2 && resumed.get(0).eventName().equals("E48");
+      System.out.println(passed ? "PASSED: Seeking range queries return the expected events."
+              : "FAILED: Got " + late.size() + " late, " + onDay.size() + " on day, " + resumed.size() + " resumed.");
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that batch mode runs each file against its own calendar and reports per file.
+  private static void testHeadlessBatchMode() {
+    System.out.println("\nTest: Headless Batch Mode");
+    java.io.PrintStream originalOut = System.out;
+    java.io.ByteArrayOutputStream captured = new java.io.ByteArrayOutputStream();
+    java.io.File dir = new java.io.File(System.getProperty("java.io.tmpdir"), "calendar_batch_test");
+    try {
+      dir.mkdirs();
+      // Both files create the same event; they only conflict if the calendars were shared.
+      for (String name : new String[] {"a.txt", "b.txt"}) {
+        java.nio.file.Files.write(new java.io.File(dir, name).toPath(), java.util.Arrays.asList(
+                "create event Meeting --autoDecline from 2025-03-01T10:00 to 2025-03-01T11:00",
+                "show status on 2025-03-01T10:30"));
+      }
+      System.setOut(new java.io.PrintStream(captured, true));
+      CalendarApp.main(new String[] {"--mode", "headless-batch", dir.getPath()});
+    } catch (Exception e) {
+      System.setOut(originalOut);
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+      return;
+    } finally {
+      System.setOut(originalOut);
+      new java.io.File(dir, "a.txt").delete();
+      new java.io.File(dir, "b.txt").delete();
+      dir.delete();
+    }
+    String output = captured.toString();
+    boolean passed = output.indexOf("a.txt") < output.indexOf("b.txt")
+            && !output.contains("Conflict")
+            && output.split("Status at 2025-03-01T10:30: Busy", -1).length == 3
+            && output.contains("Processed 2 file(s)") && output.contains("0 failed");
+    System.out.println(passed ? "PASSED: Files processed independently." : "FAILED: Unexpected output:\n" + output);
+  }
+
+  // Test that the occupancy index counts overlapping time once and stays current after adds.
+  private static void testBusySummary() {
+    System.out.println("\nTest: Busy Summary");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand("create event A from 2025-03-01T10:00 to 2025-03-01T11:00", manager);
+      java.time.LocalDate first = java.time.LocalDate.parse("2025-03-01");
+      int before = manager.occupancy().busyMinutes(first);
+      CalendarApp.CommandParser.processCommand("create event B from 2025-03-01T10:30 to 2025-03-01T12:00", manager);
+      CalendarApp.CommandParser.processCommand("show busy summary from 2025-03-01 to 2025-03-01 granularity hour", manager);
+      CalendarApp.OccupancyIndex occupancy = manager.occupancy();
+      boolean passed = before == 60
+              && occupancy.busyMinutes(first) == 120 && occupancy.eventCount(first) == 2
+              && occupancy.busyMinutes(first, 10) == 60 && occupancy.eventCount(first, 10) == 2
+              && occupancy.busyMinutes(first, 11) == 60 && occupancy.eventCount(first, 11) == 1;
+      System.out.println(passed ? "PASSED: Busy minutes and event counts maintained."
+              : "FAILED: Unexpected occupancy " + occupancy.busyMinutes(first) + " minutes");
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
+
+  // Test that generated workloads are deterministic, follow the configured weights and replay without errors.
+  private static void testWorkloadGeneratorReplay() {
+    System.out.println("\nTest: Workload Generator Replay");
+    java.io.File workload = new java.io.File(System.getProperty("java.io.tmpdir"), "calendar_workload_test.txt");
+    java.io.File export = new java.io.File(System.getProperty("java.io.tmpdir"), "calendar_workload_export.csv");
+    try {
+      String[] options = {"seed=11", "commands=500", "days=30", "exportFile=" + export.getPath()};
+      java.io.StringWriter first = new java.io.StringWriter();
+      java.io.StringWriter second = new java.io.StringWriter();
+      CalendarApp.WorkloadGenerator.fromOptions(options).generate(new java.io.PrintWriter(first));
+      CalendarApp.WorkloadGenerator.fromOptions(options).generate(new java.io.PrintWriter(second));
+      java.nio.file.Files.write(workload.toPath(), first.toString().getBytes());
+      CalendarApp.ThroughputRunner result = CalendarApp.ThroughputRunner.replay(workload.getPath(), 0);
+      // With the default weights about 1 in 21 commands is an autoDecline create.
+      CalendarApp.WorkloadGenerator large = CalendarApp.WorkloadGenerator.fromOptions(
+              new String[] {"seed=1", "commands=20000", "days=60"});
+      large.generate(new java.io.PrintWriter(new java.io.StringWriter()));
+      int autoDecline = large.realized.get("autodecline");
+      if (first.toString().equals(second.toString()) && result.commands == 500 && result.errors == 0
+              && autoDecline > 850 && autoDecline < 1050) {
+        System.out.println("PASSED: 500 generated commands replayed without errors.");
+      } else {
+        System.out.println("FAILED: Replayed " + result.commands + " commands with " + result.errors + " errors, "
+                + autoDecline + " autoDecline creates.");
+      }
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    } finally {
+      workload.delete();
+      export.delete();
+    }
+  }
+
+  // Test that a series shares one attribute holder, which a whole-series edit writes once.
+  private static void testSharedSeriesAttributes() {
+    System.out.println("\nTest: Shared Series Attributes");
+    CalendarApp.CalendarManager manager = new CalendarApp.CalendarManager();
+    try {
+      CalendarApp.CommandParser.processCommand(
+              "create event Standup from 2025-03-03T09:00 to 2025-03-03T09:15 repeats MTWRF for 5 times", manager);
+      CalendarApp.CommandParser.processCommand("edit events location Standup with Room 4", manager);
+      CalendarApp.CommandParser.processCommand(
+              "edit event location Standup from 2025-03-07T09:00 to 2025-03-07T09:15 with Room 9", manager);
+      CalendarApp.CommandParser.processCommand("edit events description Standup with Daily", manager);
+      CalendarApp.EventAttributes shared = manager.events.get(0).attributes;
+      boolean allShared = shared.sharers.size() == 4;
+      for (int i = 1; i < 4; i++) {
+        allShared &= manager.events.get(i).attributes == shared;
+      }
+      CalendarApp.CalendarEvent moved = manager.events.get(4);
+      CalendarApp.AttributePool pool = manager.attributePool;
+      if (allShared && moved.attributes != shared && shared.location.equals("Room 4")
+              && moved.location().equals("Room 9") && moved.description().equals("Daily")
+              && manager.events.get(2).description().equals("Daily")
+              && pool.references("Room 4") == 1 && pool.references("Standup") == 2 && pool.size() == 4) {
+        System.out.println("PASSED: Occurrences share one attribute holder.");
+      } else {
+        System.out.println("FAILED: Attribute values not shared as expected.");
+      }
+    } catch (Exception e) {
+      System.out.println("FAILED: Exception occurred - " + e.getMessage());
+    }
+  }
 }